@@ -0,0 +1,164 @@
+package com.netease.nim.benchmark;
+
+import com.netease.nim.uikit.contact.core.item.ContactItem;
+import com.netease.nim.uikit.contact.core.item.ItemTypes;
+import com.netease.nim.uikit.contact.core.model.IContact;
+import com.netease.nim.uikit.contact.core.query.PinYin;
+import com.netease.nim.uikit.contact.core.query.PinYinTable;
+import com.netease.nim.uikit.contact.core.query.TextComparator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通讯录排序
+ * 对比逐次比较时查拼音表（{@link TextComparator#compareIgnoreCase(String, String)}）与比较缓存的排序键，
+ * 排序键分已缓存（列表刷新时显示名称未变）和首次计算两种情况
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollationKeyBenchmark {
+
+    private static final String HANZI = "王李张刘陈杨黄赵吴周徐孙马朱胡郭何高林罗郑梁谢宋唐许韩冯邓曹彭曾萧田董袁潘于蒋蔡余杜叶程苏魏吕丁任沈姚卢姜崔钟谭陆汪范金石廖贾夏韦付方白邹孟熊秦邱江尹薛闫段雷侯龙史陶黎贺顾毛郝龚邵万钱严覃武戴莫孔向汤伟芳娜敏静丽强磊军洋勇艳杰娟涛明超秀霞平刚桂";
+
+    private static final String LATIN = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    /**
+     * 好友数
+     */
+    @Param({"200", "2000"})
+    public int size;
+
+    private List<String> names;
+
+    private List<ContactItem> items;
+
+    @Setup
+    public void setup() throws IOException {
+        InputStream is = CollationKeyBenchmark.class.getResourceAsStream("/pinyin/index.dat");
+        try {
+            PinYin.init(PinYinTable.load(is));
+        } finally {
+            is.close();
+        }
+
+        Random random = new Random(2017);
+        names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            names.add(makeName(random));
+        }
+
+        items = makeItems(names);
+        sort(new ArrayList<>(items)); // 缓存排序键
+    }
+
+    @Benchmark
+    public List<String> sortCompareIgnoreCase() {
+        List<String> list = new ArrayList<>(names);
+        Collections.sort(list, new Comparator<String>() {
+            @Override
+            public int compare(String lhs, String rhs) {
+                return TextComparator.compareIgnoreCase(lhs, rhs);
+            }
+        });
+
+        return list;
+    }
+
+    @Benchmark
+    public List<ContactItem> sortCollationKeyCached() {
+        return sort(new ArrayList<>(items));
+    }
+
+    @Benchmark
+    public List<ContactItem> sortCollationKeyCold() {
+        return sort(makeItems(names));
+    }
+
+    private static List<ContactItem> sort(List<ContactItem> list) {
+        Collections.sort(list);
+
+        return list;
+    }
+
+    private static List<ContactItem> makeItems(List<String> names) {
+        List<ContactItem> items = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            items.add(new ContactItem(new Contact("account" + i, names.get(i)), ItemTypes.FRIEND));
+        }
+
+        return items;
+    }
+
+    /**
+     * 显示名称：多数为2~3个汉字，部分为英文/数字或中英混合
+     */
+    private static String makeName(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int kind = random.nextInt(10);
+        if (kind < 6) {
+            append(sb, HANZI, 2 + random.nextInt(2), random);
+        } else if (kind < 8) {
+            append(sb, LATIN, 4 + random.nextInt(8), random);
+        } else {
+            append(sb, LATIN, 1 + random.nextInt(4), random);
+            append(sb, HANZI, 1 + random.nextInt(3), random);
+        }
+
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String chars, int count, Random random) {
+        for (int i = 0; i < count; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+    }
+
+    private static final class Contact implements IContact {
+        private final String account;
+
+        private final String name;
+
+        Contact(String account, String name) {
+            this.account = account;
+            this.name = name;
+        }
+
+        @Override
+        public String getContactId() {
+            return account;
+        }
+
+        @Override
+        public int getContactType() {
+            return Type.Friend;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.netease.nim.benchmark;
+
+import com.netease.nim.uikit.common.framework.ParseCache;
+import com.netease.nim.uikit.robot.parser.elements.group.TemplateRoot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 机器人消息模板解析
+ * 对比每次解析（pull解析器一次遍历）与 {@link ParseCache} 命中（消息列表刷新时的常见路径）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RobotTemplateBenchmark {
+
+    /**
+     * 模板中的条目数：1为单条文本/图片回复，10为图文列表
+     */
+    @Param({"1", "10"})
+    public int items;
+
+    private String xml;
+
+    private ParseCache<TemplateRoot> cache;
+
+    @Setup
+    public void setup() {
+        xml = makeTemplate(items);
+
+        cache = new ParseCache<>(100, new ParseCache.Parser<TemplateRoot>() {
+            @Override
+            public TemplateRoot parse(String content) {
+                return new TemplateRoot(content);
+            }
+        });
+        cache.get("uuid", xml);
+    }
+
+    @Benchmark
+    public TemplateRoot parse() {
+        return new TemplateRoot(xml);
+    }
+
+    @Benchmark
+    public TemplateRoot parseCached() {
+        return cache.get("uuid", xml);
+    }
+
+    /**
+     * 与机器人返回的模板结构一致：标题文本，每个条目为带图片、标题、摘要的链接
+     */
+    static String makeTemplate(int items) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        sb.append("<template id=\"news_list\" version=\"0.1\" params=\"\">\n");
+        sb.append("  <LinearLayout>\n");
+        sb.append("    <text name=\"title\" color=\"#333333\">为您找到以下结果</text>\n");
+        sb.append("  </LinearLayout>\n");
+        for (int i = 0; i < items; i++) {
+            sb.append("  <LinearLayout>\n");
+            sb.append("    <link type=\"url\" style=\"\" target=\"https://m.example.com/news/").append(i).append("\" params=\"\">\n");
+            sb.append("      <image name=\"cover").append(i).append("\" url=\"https://img.example.com/cover/").append(i)
+                    .append(".jpg\" width=\"30%\" height=\"80\"/>\n");
+            sb.append("      <text name=\"headline").append(i).append("\" width=\"70%\" color=\"#000000\">第").append(i)
+                    .append("条新闻的标题 &amp; 副标题</text>\n");
+            sb.append("      <text name=\"summary").append(i).append("\" color=\"#999999\">新闻摘要，通常是一到两行的描述文字，包含 English words 和数字 2017</text>\n");
+            sb.append("    </link>\n");
+            sb.append("  </LinearLayout>\n");
+        }
+        sb.append("  <LinearLayout>\n");
+        sb.append("    <link type=\"block\" style=\"button\" target=\"more\" params=\"page=2\">\n");
+        sb.append("      <text>查看更多</text>\n");
+        sb.append("    </link>\n");
+        sb.append("  </LinearLayout>\n");
+        sb.append("</template>\n");
+
+        return sb.toString();
+    }
+}
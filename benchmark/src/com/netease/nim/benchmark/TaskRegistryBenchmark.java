@@ -0,0 +1,113 @@
+package com.netease.nim.benchmark;
+
+import com.netease.nim.demo.common.infra.ConcurrentTaskRegistry;
+import com.netease.nim.demo.common.infra.DefaultTaskRegistry;
+import com.netease.nim.demo.common.infra.Task;
+import com.netease.nim.demo.common.infra.TaskRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务注册表并发争用
+ * 多个线程同时调度任务时，每个任务注册（去重）、查询、完成后注销；部分任务key相同（如同一资源的重复请求）
+ * 对比全局锁的 {@link DefaultTaskRegistry} 与 {@link ConcurrentTaskRegistry}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TaskRegistryBenchmark {
+
+    private static final int KEYS = 256;
+
+    @Param({"default", "concurrent"})
+    public String registry;
+
+    private TaskRegistry taskRegistry;
+
+    private KeyTask[] tasks;
+
+    @Setup
+    public void setup() {
+        taskRegistry = "default".equals(registry) ? new DefaultTaskRegistry() : new ConcurrentTaskRegistry();
+
+        tasks = new KeyTask[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            tasks[i] = new KeyTask("T(KeyTask)I(" + i + ")");
+        }
+    }
+
+    /**
+     * 每个线程的任务序列
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        @Setup
+        public void setup() {
+            next = (int) Thread.currentThread().getId() * 31;
+        }
+
+        int next() {
+            next = next * 1103515245 + 12345;
+            return (next >>> 16) % KEYS;
+        }
+    }
+
+    @Benchmark
+    public Task registerQueryUnregister(Cursor cursor) {
+        KeyTask task = tasks[cursor.next()];
+
+        Task registered = taskRegistry.register(task);
+        taskRegistry.query(task.getKey());
+        if (registered == task) {
+            taskRegistry.unregister(task);
+        }
+
+        return registered;
+    }
+
+    @Benchmark
+    public Task query(Cursor cursor) {
+        return taskRegistry.query(tasks[cursor.next()].getKey());
+    }
+
+    private static final class KeyTask extends Task {
+        private final String key;
+
+        KeyTask(String key) {
+            this.key = key;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        @Override
+        protected String key() {
+            return key;
+        }
+
+        @Override
+        protected Object[] execute(Object[] params) {
+            return null;
+        }
+    }
+}
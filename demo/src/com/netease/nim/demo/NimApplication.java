@@ -105,9 +105,8 @@ public class NimApplication extends Application {
             // 1、UI相关初始化操作
             // 2、相关Service调用
 
-            // init pinyin  什么用？
+            // init pinyin，拼音表在登录后构建缓存时于后台线程加载
             PinYin.init(this);
-            PinYin.validate();
 
             // 初始化UIKit模块
             // SDK 由于需要保持后台运行，典型场景下会在独立进程中运行，
@@ -1,6 +1,7 @@
 package com.netease.nim.demo.common.infra;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 public abstract class AbstractTaskWorker {	
 	public interface ExecuteCallback {
@@ -28,7 +29,17 @@ public abstract class AbstractTaskWorker {
 	}
 
 	public void execute(Task task) {
-		getExecutor(task).execute(getRunnable(task));
+		try {
+			getExecutor(task).execute(getRunnable(task));
+		} catch (RejectedExecutionException e) {
+			// back pressure
+			task.reject(e);
+
+			// callback
+			if (executeCallback != null) {
+				executeCallback.onExecuted(task, true);
+			}
+		}
 	}
 
 	private final Executor getExecutor(Task task) {
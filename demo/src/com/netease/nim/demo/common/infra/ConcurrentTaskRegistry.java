@@ -0,0 +1,44 @@
+package com.netease.nim.demo.common.infra;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ConcurrentTaskRegistry implements TaskRegistry {
+	/** tasks */
+	private final ConcurrentHashMap<String, Task> tasks = new ConcurrentHashMap<String, Task>();
+	
+	@Override
+	public Task register(Task task) {
+		// atomic dedup
+		Task tsk = tasks.putIfAbsent(task.key(), task);
+		
+		return tsk != null ? tsk : task;
+	}
+	
+	@Override
+	public Task unregister(Task task) {
+		// only the registered one
+		return tasks.remove(task.key(), task) ? task : null;
+	}
+
+	@Override
+	public boolean registered(Task task) {
+		return tasks.containsKey(task.key());
+	}
+	
+	@Override
+	public Task query(String key) {
+		return tasks.get(key);
+	}
+
+	@Override
+	public Collection<Task> queryAll() {
+		return new ArrayList<Task>(tasks.values());
+	}
+	
+	@Override
+	public int count() {
+		return tasks.size();
+	}
+}
@@ -7,7 +7,7 @@ public class DefaultTaskScheduler implements com.netease.nim.demo.common.infra.T
 	/**
 	 * registry
 	 */
-	private final TaskRegistry registry = new DefaultTaskRegistry();
+	private final TaskRegistry registry = new ConcurrentTaskRegistry();
 	
 	/**
 	 * execute callback
@@ -1,7 +1,8 @@
 package com.netease.nim.demo.common.infra;
 
-import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import android.text.TextUtils;
 
@@ -13,6 +14,12 @@ public abstract class ManagedTask extends ObservableTask {
 	
 	private static AtomicInteger serial = new AtomicInteger();
 	
+	/** class -> simple name */
+	private static final ConcurrentHashMap<Class<?>, String> tags = new ConcurrentHashMap<Class<?>, String>();
+	
+	/** tag -> "T(tag)I(" */
+	private static final ConcurrentHashMap<String, String> keyPrefixes = new ConcurrentHashMap<String, String>();
+	
 	private TaskManager taskManager;
 	
 	private TaskObserver taskObserver;
@@ -39,7 +46,12 @@ public abstract class ManagedTask extends ObservableTask {
 		return taskObserver;
 	}
 	
-	private ArrayList<ManagedTask> links = new ArrayList<ManagedTask>();
+	private static final ManagedTask[] NO_LINKS = new ManagedTask[0];
+	
+	/**
+	 * linked same tasks in link order (FIFO), copy on write: linking is rare, publishing is frequent
+	 */
+	private final AtomicReference<ManagedTask[]> links = new AtomicReference<ManagedTask[]>(NO_LINKS);
 
 	/**
 	 * on task result
@@ -80,10 +92,8 @@ public abstract class ManagedTask extends ObservableTask {
 		notifyTaskResult(results);
 		
 		// links
-		synchronized (links) {
-			for (ManagedTask link : links) {
-				link.onPublishResult(results);
-			}
+		for (ManagedTask task : linkedTasks()) {
+			task.onPublishResult(results);
 		}
 	}
 	
@@ -100,10 +110,8 @@ public abstract class ManagedTask extends ObservableTask {
 		notifyTaskProgress(params);
 		
 		// links
-		synchronized (links) {
-			for (ManagedTask link : links) {
-				link.onPublishProgress(params);
-			}
+		for (ManagedTask task : linkedTasks()) {
+			task.onPublishProgress(params);
 		}
 	}
 	
@@ -137,22 +145,25 @@ public abstract class ManagedTask extends ObservableTask {
 		String id = task.getTaskId();
 		String extraId = task.getTaskExtraId(params);
 		
-		StringBuilder sb = new StringBuilder();
-
-		// tag
-		sb.append("T");
-		sb.append(ENCLOSURE.charAt(0));
-		sb.append(tag);
-		sb.append(ENCLOSURE.charAt(1));
+		// tag, cached
+		String prefix = keyPrefixes.get(tag);
+		if (prefix == null) {
+			prefix = "T" + ENCLOSURE.charAt(0) + tag + ENCLOSURE.charAt(1) + "I" + ENCLOSURE.charAt(0);
+			keyPrefixes.putIfAbsent(tag, prefix);
+		}
+		
+		boolean extra = !TextUtils.isEmpty(extraId);
 		
-		// id
-		sb.append("I");
-		sb.append(ENCLOSURE.charAt(0));
+		StringBuilder sb = new StringBuilder(prefix.length() + 1 + String.valueOf(id).length()
+				+ (extra ? extraId.length() + 3 : 0));
+
+		// tag, id
+		sb.append(prefix);
 		sb.append(id);
 		sb.append(ENCLOSURE.charAt(1));
 		
 		// extra id
-		if (!TextUtils.isEmpty(extraId)) {
+		if (extra) {
 			sb.append("E");
 			sb.append(ENCLOSURE.charAt(0));
 			sb.append(extraId);
@@ -168,7 +179,14 @@ public abstract class ManagedTask extends ObservableTask {
 	 * @return task tag
 	 */
 	protected String getTaskTag() {
-		return getClass().getSimpleName();
+		Class<?> clazz = getClass();
+		String tag = tags.get(clazz);
+		if (tag == null) {
+			tag = clazz.getSimpleName();
+			tags.putIfAbsent(clazz, tag);
+		}
+		
+		return tag;
 	}
 	
 	/**
@@ -219,10 +237,8 @@ public abstract class ManagedTask extends ObservableTask {
     @Override
     public void cancel() {
         super.cancel();
-        synchronized (links) {
-            for (ManagedTask link : links) {
-                link.cancel();
-            }
+        for (ManagedTask task : linkedTasks()) {
+            task.cancel();
         }
     }
 
@@ -233,9 +249,22 @@ public abstract class ManagedTask extends ObservableTask {
 	private final void link(ManagedTask task) {
 		trace("link " + dump(true));
 		
-		synchronized (links) {
-			links.add(task);
-		}
+		ManagedTask[] tasks;
+		ManagedTask[] linked;
+		do {
+			tasks = links.get();
+			linked = new ManagedTask[tasks.length + 1];
+			System.arraycopy(tasks, 0, linked, 0, tasks.length);
+			linked[tasks.length] = task;
+		} while (!links.compareAndSet(tasks, linked));
+	}
+	
+	/**
+	 * linked tasks in link order (FIFO), a snapshot shared by callers, do not modify
+	 * @return
+	 */
+	private final ManagedTask[] linkedTasks() {
+		return links.get();
 	}
 	
 	private static final void trace(String msg) {
@@ -0,0 +1,261 @@
+package com.netease.nim.demo.common.infra;
+
+import android.os.Handler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按key限流的令牌桶：每个key最多累积burst个令牌，每period补充一个，允许突发之后按固定速率执行。
+ * 被抑制的调用可以合并为一次延后执行（trailing），在下一个令牌可用时执行最后一次提交的任务。
+ * 线程安全，每个key的桶独立加锁。
+ */
+public class RateLimiter {
+
+    /**
+     * 单个key的统计快照
+     */
+    public static class Metrics {
+        /** 立即执行(取得令牌) */
+        public long acquired;
+
+        /** 被抑制 */
+        public long suppressed;
+
+        /** 被合并到延后执行 */
+        public long coalesced;
+
+        /** 延后执行 */
+        public long trailing;
+
+        @Override
+        public String toString() {
+            return "acquired " + acquired + " suppressed " + suppressed + " coalesced " + coalesced
+                    + " trailing " + trailing;
+        }
+    }
+
+    private final int burst;
+
+    private final long periodNanos;
+
+    private final Handler handler;
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param burst  最大突发次数
+     * @param period 持续速率下两次执行的间隔(ms)
+     */
+    public RateLimiter(int burst, long period) {
+        this(burst, period, null);
+    }
+
+    /**
+     * @param handler 执行合并后的延后任务，null不支持合并
+     */
+    public RateLimiter(int burst, long period, Handler handler) {
+        this.burst = Math.max(1, burst);
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, period));
+        this.handler = handler;
+    }
+
+    /**
+     * 尝试取得一个令牌
+     */
+    public boolean tryAcquire(String key) {
+        Bucket bucket = getBucket(key);
+        synchronized (bucket) {
+            if (bucket.acquire(now())) {
+                bucket.metrics.acquired++;
+                return true;
+            }
+
+            bucket.metrics.suppressed++;
+            return false;
+        }
+    }
+
+    /**
+     * 有令牌时执行，否则丢弃
+     *
+     * @return 是否执行
+     */
+    public boolean run(String key, Runnable runnable) {
+        if (!tryAcquire(key)) {
+            return false;
+        }
+
+        runnable.run();
+        return true;
+    }
+
+    /**
+     * 有令牌时立即执行，否则在下一个令牌可用时执行最后一次提交的任务
+     *
+     * @return 是否立即执行
+     */
+    public boolean runOrCoalesce(final String key, Runnable runnable) {
+        final Bucket bucket = getBucket(key);
+        synchronized (bucket) {
+            if (bucket.trailing == null && bucket.acquire(now())) {
+                bucket.metrics.acquired++;
+            } else {
+                bucket.metrics.suppressed++;
+
+                if (handler == null) {
+                    return false;
+                }
+
+                // coalesce into one trailing run, the latest wins
+                if (bucket.trailing != null) {
+                    bucket.metrics.coalesced++;
+                    bucket.trailing = runnable;
+                    return false;
+                }
+
+                bucket.trailing = runnable;
+                scheduleTrailing(bucket, bucket.delay(now()));
+                return false;
+            }
+        }
+
+        runnable.run();
+        return true;
+    }
+
+    /**
+     * 距下一个令牌可用的时间(ms)，0为当前可用
+     */
+    public long getDelay(String key) {
+        Bucket bucket = getBucket(key);
+        synchronized (bucket) {
+            return TimeUnit.NANOSECONDS.toMillis(bucket.delay(now()));
+        }
+    }
+
+    /**
+     * 清空令牌，如进程重启前刚执行过，需等待一个周期
+     */
+    public void drain(String key) {
+        Bucket bucket = getBucket(key);
+        synchronized (bucket) {
+            bucket.refill(now());
+            bucket.tokens = 0;
+        }
+    }
+
+    public Metrics getMetrics(String key) {
+        Metrics metrics = new Metrics();
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            synchronized (bucket) {
+                metrics.acquired = bucket.metrics.acquired;
+                metrics.suppressed = bucket.metrics.suppressed;
+                metrics.coalesced = bucket.metrics.coalesced;
+                metrics.trailing = bucket.metrics.trailing;
+            }
+        }
+
+        return metrics;
+    }
+
+    public void reset() {
+        for (Bucket bucket : buckets.values()) {
+            synchronized (bucket) {
+                if (bucket.trailing != null && handler != null) {
+                    handler.removeCallbacks(bucket.trailer);
+                }
+                bucket.trailing = null;
+            }
+        }
+
+        buckets.clear();
+    }
+
+    private void scheduleTrailing(final Bucket bucket, long delayNanos) {
+        handler.postDelayed(bucket.trailer, TimeUnit.NANOSECONDS.toMillis(delayNanos) + 1);
+    }
+
+    private void runTrailing(Bucket bucket) {
+        Runnable runnable;
+        synchronized (bucket) {
+            if (bucket.trailing == null) {
+                return;
+            }
+
+            long now = now();
+            if (!bucket.acquire(now)) {
+                scheduleTrailing(bucket, bucket.delay(now));
+                return;
+            }
+
+            runnable = bucket.trailing;
+            bucket.trailing = null;
+            bucket.metrics.trailing++;
+        }
+
+        runnable.run();
+    }
+
+    private Bucket getBucket(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new Bucket(now());
+            Bucket exist = buckets.putIfAbsent(key, bucket);
+            if (exist != null) {
+                bucket = exist;
+            }
+        }
+
+        return bucket;
+    }
+
+    private static long now() {
+        return System.nanoTime();
+    }
+
+    private final class Bucket {
+        private double tokens;
+
+        private long last;
+
+        private Runnable trailing;
+
+        private final Metrics metrics = new Metrics();
+
+        private final Runnable trailer = new Runnable() {
+            @Override
+            public void run() {
+                runTrailing(Bucket.this);
+            }
+        };
+
+        Bucket(long now) {
+            this.tokens = burst;
+            this.last = now;
+        }
+
+        void refill(long now) {
+            if (now > last) {
+                tokens = Math.min(burst, tokens + (double) (now - last) / periodNanos);
+                last = now;
+            }
+        }
+
+        boolean acquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+
+            return false;
+        }
+
+        long delay(long now) {
+            refill(now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * periodNanos);
+        }
+    }
+}
@@ -161,6 +161,16 @@ public abstract class Task {
 		return true;
 	}
 	
+	/*package*/ void reject(Throwable tr) {
+		// rejected by executor, treated as fault
+		onException(tr);
+
+		state.fault = true;
+
+		// publish result
+		publishResult(null);
+	}
+	
 	/**
 	 * execute
 	 *
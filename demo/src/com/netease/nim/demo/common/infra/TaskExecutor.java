@@ -2,19 +2,27 @@ package com.netease.nim.demo.common.infra;
 
 import java.util.Comparator;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import android.annotation.TargetApi;
 import android.os.Build;
 
+import com.netease.nim.uikit.common.util.log.LogUtil;
+
 
 public class TaskExecutor implements Executor {
+	private static final String TAG = "TaskExecutor";
+
 	private final static int QUEUE_INIT_CAPACITY = 11;
 
 	private static final int CORE = 3;
@@ -22,6 +30,16 @@ public class TaskExecutor implements Executor {
 	private static final int MAX = 5;
 
 	private static final int TIMEOUT = 30 * 1000;
+
+	/**
+	 * 优先级模式：共享优先级队列，同优先级内FIFO
+	 */
+	public static final int MODE_PRIORITY = 0;
+
+	/**
+	 * 工作窃取模式：每个工作线程一个双端队列，空闲线程从其他队列尾部窃取，不保证优先级
+	 */
+	public static final int MODE_WORK_STEALING = 1;
 	
 	public static final Executor IMMEDIATE_EXECUTOR = new Executor() {
 		@Override
@@ -39,21 +57,97 @@ public class TaskExecutor implements Executor {
 
 		public boolean allowCoreTimeOut;
 
+		/** {@link #MODE_PRIORITY} or {@link #MODE_WORK_STEALING} */
+		public int mode;
+
+		/** 排队任务上限，超出时抛出RejectedExecutionException，0为不限 */
+		public int capacity;
+
 		public Config(int core, int max, int timeout, boolean allowCoreTimeOut) {
+			this(core, max, timeout, allowCoreTimeOut, MODE_PRIORITY, 0);
+		}
+
+		public Config(int core, int max, int timeout, boolean allowCoreTimeOut, int mode, int capacity) {
 			this.core = core;
 			this.max = max;
 			this.timeout = timeout;
 			this.allowCoreTimeOut = allowCoreTimeOut;
+			this.mode = mode;
+			this.capacity = capacity;
 		}
 	}
 
-	public static Config defaultConfig = new Config(CORE, MAX, TIMEOUT, true);
+	/**
+	 * 默认配置队列不限长度，直接调用 {@link #execute(Runnable)} 的地方（如NimLocationManager）不会被拒绝；
+	 * 需要限长时自行指定capacity，并处理RejectedExecutionException（AbstractTaskWorker已处理）
+	 */
+	public static Config defaultConfig = new Config(CORE, MAX, TIMEOUT, true, MODE_PRIORITY, 0);
+
+	/**
+	 * 执行器后端
+	 */
+	interface Backend {
+		/**
+		 * @throws RejectedExecutionException if has shutdown
+		 */
+		void execute(Runnable runnable);
+
+		void shutdown();
+
+		boolean isShutdown();
+	}
+
+	/**
+	 * 统计快照
+	 */
+	public static class Stats {
+		/** 排队中 */
+		public int queued;
+
+		/** 执行中 */
+		public int active;
+
+		/** 已完成 */
+		public long completed;
+
+		/** 已拒绝 */
+		public long rejected;
+
+		/** 累计排队等待时间(ms) */
+		public long waitTime;
+
+		/**
+		 * @return 平均排队等待时间(ms)
+		 */
+		public long averageWaitTime() {
+			return completed > 0 ? waitTime / completed : 0;
+		}
+
+		@Override
+		public String toString() {
+			return "queued " + queued + " active " + active + " completed " + completed + " rejected " + rejected
+					+ " wait " + averageWaitTime() + "ms";
+		}
+	}
 
 	private final String name;
 
 	private final Config config;
 
-	private ExecutorService service;
+	private Backend service;
+
+	/**
+	 * counters
+	 */
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final AtomicInteger active = new AtomicInteger();
+
+	private final AtomicLong completed = new AtomicLong();
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	private final AtomicLong waitTime = new AtomicLong();
 
 	public TaskExecutor(String name) {
 		this(name, defaultConfig);
@@ -80,12 +174,12 @@ public class TaskExecutor implements Executor {
 			}
 
 			// create
-			service = createExecutor(config);
+			service = createBackend(config);
 		}
 	}
 
 	public void shutdown() {
-		ExecutorService executor = null;
+		Backend executor = null;
 
 		synchronized (this) {
 			// swap
@@ -106,87 +200,322 @@ public class TaskExecutor implements Executor {
 		}
 	}
 
+	/**
+	 * @throws RejectedExecutionException if capacity is set and queue is full
+	 */
 	@Override
 	public void execute(Runnable runnable) {
 		// executeRunnable runnable with default priority
 		executeRunnable(new PRunnable(runnable, 0));
 	}
 
+	/**
+	 * @throws RejectedExecutionException if capacity is set and queue is full
+	 */
 	public Future<?> submit(Runnable runnable) {
-		synchronized (this) {
-			if (service == null || service.isShutdown()) {
-				return null;
-			}
-			return service.submit(new PRunnable(runnable, 0));
-		}
+		FutureTask<Void> future = new FutureTask<Void>(runnable, null);
+
+		return executeRunnable(new PRunnable(future, 0)) ? future : null;
 	}
 
+	/**
+	 * @throws RejectedExecutionException if capacity is set and queue is full
+	 */
 	public void execute(Runnable runnable, int priority) {
 		// executeRunnable runnable with priority
 		executeRunnable(new PRunnable(runnable, priority));
 	}
 
-	private void executeRunnable(Runnable runnable) {
+	public Stats getStats() {
+		Stats stats = new Stats();
+		stats.queued = queued.get();
+		stats.active = active.get();
+		stats.completed = completed.get();
+		stats.rejected = rejected.get();
+		stats.waitTime = waitTime.get();
+
+		return stats;
+	}
+
+	private boolean executeRunnable(PRunnable runnable) {
 		synchronized (this) {
-			// has shutdown, reject
+			// has shutdown, ignore
 			if (service == null || service.isShutdown()) {
-				return;
+				return false;
+			}
+
+			// full, reject
+			if (config.capacity > 0 && queued.get() >= config.capacity) {
+				rejected.incrementAndGet();
+				throw new RejectedExecutionException(name + " queue full, " + getStats());
 			}
 
 			// execute
+			queued.incrementAndGet();
+			try {
+				service.execute(runnable);
+			} catch (RejectedExecutionException e) {
+				queued.decrementAndGet();
+				rejected.incrementAndGet();
+				throw e;
+			}
+
+			return true;
+		}
+	}
+
+	private Backend createBackend(Config config) {
+		if (config.mode == MODE_WORK_STEALING) {
+			return new WorkStealingBackend(name, config);
+		}
+
+		return new PriorityBackend(name, config);
+	}
+
+	/**
+	 * 优先级后端
+	 * 优先级队列无界，ThreadPoolExecutor只在队列满时才会创建core以上的线程，所以这里core取max，
+	 * 空闲线程按allowCoreTimeOut或core < max回收
+	 */
+	private static class PriorityBackend implements Backend {
+		private final ThreadPoolExecutor service;
+
+		PriorityBackend(String name, Config config) {
+			service = new ThreadPoolExecutor(config.max, config.max, config.timeout, TimeUnit.MILLISECONDS,
+					new PriorityBlockingQueue<Runnable>(QUEUE_INIT_CAPACITY, QUEUE_COMPARATOR),
+					new TaskThreadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+
+			allowCoreThreadTimeOut(service, config.allowCoreTimeOut || config.core < config.max);
+		}
+
+		@Override
+		public void execute(Runnable runnable) {
 			service.execute(runnable);
 		}
+
+		@Override
+		public void shutdown() {
+			service.shutdown();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return service.isShutdown();
+		}
 	}
 
-	private ExecutorService createExecutor(Config config) {
-		ThreadPoolExecutor service = new ThreadPoolExecutor(config.core, config.max, config.timeout,
-				TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(QUEUE_INIT_CAPACITY, mQueueComparator),
-				new TaskThreadFactory(name), new ThreadPoolExecutor.DiscardPolicy());
+	/**
+	 * 工作窃取后端
+	 * 每个工作线程一个双端队列，工作线程提交的任务进入自己的队列，其他线程提交的任务轮流分配；
+	 * 线程从自己队列头部取任务，空闲时从其他队列尾部窃取。信号量许可数等于排队任务数。
+	 */
+	private static class WorkStealingBackend implements Backend {
+		private final LinkedBlockingDeque<Runnable>[] deques;
+
+		private final Thread[] workers;
+
+		private final Semaphore available = new Semaphore(0);
+
+		private final AtomicInteger next = new AtomicInteger();
+
+		private final ThreadLocal<Integer> local = new ThreadLocal<Integer>();
+
+		private final ThreadFactory factory;
+
+		private final boolean timeout;
+
+		private final int keepAlive;
+
+		private volatile boolean shutdown;
+
+		@SuppressWarnings("unchecked")
+		WorkStealingBackend(String name, Config config) {
+			int parallelism = Math.max(1, config.max);
+
+			this.deques = new LinkedBlockingDeque[parallelism];
+			for (int i = 0; i < parallelism; i++) {
+				deques[i] = new LinkedBlockingDeque<Runnable>();
+			}
+
+			this.workers = new Thread[parallelism];
+			this.factory = new TaskThreadFactory(name);
+			this.timeout = config.allowCoreTimeOut || config.core < config.max;
+			this.keepAlive = config.timeout;
+		}
+
+		@Override
+		public void execute(Runnable runnable) {
+			if (shutdown) {
+				throw new RejectedExecutionException("shutdown");
+			}
+
+			// own deque if submitted by worker, else round robin
+			Integer slot = local.get();
+			if (slot == null) {
+				slot = (next.getAndIncrement() & Integer.MAX_VALUE) % deques.length;
+			}
+
+			deques[slot].offer(runnable);
+			available.release();
+
+			// start worker until reaches parallelism
+			synchronized (workers) {
+				for (int i = 0; i < workers.length; i++) {
+					if (workers[i] == null) {
+						workers[i] = factory.newThread(new Worker(i));
+						workers[i].start();
+						break;
+					}
+				}
+			}
+		}
+
+		@Override
+		public void shutdown() {
+			shutdown = true;
+
+			synchronized (workers) {
+				for (Thread worker : workers) {
+					if (worker != null) {
+						worker.interrupt();
+					}
+				}
+			}
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return shutdown;
+		}
+
+		private Runnable take(int slot) {
+			// own deque first
+			Runnable r = deques[slot].pollFirst();
+
+			// steal
+			for (int i = 1; r == null && i < deques.length; i++) {
+				r = deques[(slot + i) % deques.length].pollLast();
+			}
+
+			return r;
+		}
+
+		/**
+		 * 空闲超时或关闭时退出，期间有新任务到达则继续
+		 */
+		private boolean retire(int slot) {
+			synchronized (workers) {
+				if (available.availablePermits() > 0) {
+					return false;
+				}
 
-		allowCoreThreadTimeOut(service, config.allowCoreTimeOut);
+				workers[slot] = null;
 
-		return service;
+				return true;
+			}
+		}
+
+		private boolean acquire(int slot) {
+			try {
+				if (timeout && !shutdown) {
+					if (available.tryAcquire(keepAlive, TimeUnit.MILLISECONDS)) {
+						return true;
+					}
+				} else if (!shutdown) {
+					available.acquire();
+					return true;
+				} else if (available.tryAcquire()) {
+					return true;
+				}
+			} catch (InterruptedException e) {
+				// shutdown
+			}
+
+			return false;
+		}
+
+		private class Worker implements Runnable {
+			private final int slot;
+
+			Worker(int slot) {
+				this.slot = slot;
+			}
+
+			@Override
+			public void run() {
+				local.set(slot);
+
+				while (true) {
+					if (!acquire(slot)) {
+						if (retire(slot)) {
+							return;
+						}
+
+						continue;
+					}
+
+					// one permit, one task somewhere
+					Runnable r;
+					while ((r = take(slot)) == null) {
+						Thread.yield();
+					}
+
+					try {
+						r.run();
+					} catch (Throwable tr) {
+						LogUtil.e(TAG, "task error on " + Thread.currentThread().getName(), tr);
+					}
+				}
+			}
+		}
 	}
 
-	private static class PRunnable implements Runnable {
-		private static int sSerial = 0;
+	private class PRunnable implements Runnable {
+		private final Runnable runnable;
 
-		private Runnable runnable;
+		private final int priority;
 
-		private int priority;
+		private final long serial;
 
-		private int serial;
+		private final long enqueued;
 
 		public PRunnable(Runnable r, int p) {
-			serial = sSerial++;
+			serial = SERIAL.getAndIncrement();
+			enqueued = System.nanoTime();
 			runnable = r;
 			priority = p;
 		}
 
 		@Override
 		public void run() {
-			if (runnable != null) {
-				runnable.run();
-			}
-		}
-
-		public static final int compare(PRunnable r1, PRunnable r2) {
-			if (r1.priority != r2.priority) {
-				return r2.priority - r1.priority;
-			} else {
-				return r1.serial - r2.serial;
+			queued.decrementAndGet();
+			waitTime.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueued));
+			active.incrementAndGet();
+			try {
+				if (runnable != null) {
+					runnable.run();
+				}
+			} finally {
+				active.decrementAndGet();
+				completed.incrementAndGet();
 			}
 		}
 	}
 
-	Comparator<Runnable> mQueueComparator = new Comparator<Runnable>() {
+	private static final AtomicLong SERIAL = new AtomicLong();
+
+	private static final Comparator<Runnable> QUEUE_COMPARATOR = new Comparator<Runnable>() {
 
 		@Override
 		public int compare(Runnable lhs, Runnable rhs) {
 			PRunnable r1 = (PRunnable) lhs;
 			PRunnable r2 = (PRunnable) rhs;
 
-			return PRunnable.compare(r1, r2);
+			if (r1.priority != r2.priority) {
+				return r2.priority - r1.priority;
+			} else {
+				return r1.serial < r2.serial ? -1 : (r1.serial == r2.serial ? 0 : 1);
+			}
 		}
 	};
 
@@ -230,4 +559,4 @@ public class TaskExecutor implements Executor {
 	private static final void allowCoreThreadTimeOut9(ThreadPoolExecutor service, boolean value) {
 		service.allowCoreThreadTimeOut(value);
 	}
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import android.os.Handler;
 
 import com.netease.nim.demo.DemoCache;
 import com.netease.nim.demo.common.infra.Handlers;
+import com.netease.nim.demo.common.infra.RateLimiter;
 import com.netease.nim.demo.config.preference.UserPreferences;
 import com.netease.nim.uikit.cache.FriendDataCache;
 import com.netease.nim.uikit.cache.RobotInfoCache;
@@ -31,7 +32,12 @@ public class OnlineStateEventSubscribe {
     // 订阅好友并同步当前在线状态的频率控制30 s，对同一账号连续2次订阅时间间隔在30s 以上
     private static final long SUBS_FREQ = 30 * 1000;
 
-    private static long lastSubsTime = -1;
+    // 同一批账号，不允许突发
+    private static final int SUBS_BURST = 1;
+
+    private static final String SUBS_KEY = "initSubscribes";
+
+    private static RateLimiter subsLimiter;
 
     private static boolean initSubsFinished = true;
 
@@ -42,50 +48,53 @@ public class OnlineStateEventSubscribe {
     public static void initSubscribes() {
 
         // 正在进行
-        if (waitInitSubs || !initSubsFinished) {
+        if (!initSubsFinished) {
             return;
         }
 
-        final long timeInterval = getSubsTimeInterval();
-        if (timeInterval <= SUBS_FREQ) {
-            waitInitSubs = true;
-            long delay = SUBS_FREQ - timeInterval + 1000;
-            LogUtil.ui("time interval short than 30 and init subscribe delay " + delay);
-            Handler handler = Handlers.sharedHandler(DemoCache.getContext());
-            handler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    // 延迟订阅
-                    waitInitSubs = false;
-                    initSubscribes();
-                }
-            }, delay);
-            return;
+        // 频率控制，期间的多次调用合并为一次延迟订阅
+        waitInitSubs = !getSubsLimiter().runOrCoalesce(SUBS_KEY, initSubsRunnable);
+        if (waitInitSubs) {
+            LogUtil.ui("time interval short than 30 and init subscribe delay " + getSubsLimiter().getDelay(SUBS_KEY));
         }
+    }
 
-        initSubsFinished = false;
+    private static Runnable initSubsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            waitInitSubs = false;
 
-        // 重置事件、订阅关系缓存
-        OnlineStateEventCache.resetCache();
+            initSubsFinished = false;
 
-        // 重置订阅有效期管理
-        SubscribeExpiryManager.reset();
+            // 重置事件、订阅关系缓存
+            OnlineStateEventCache.resetCache();
 
-        // 订阅好友、最近联系人中非好友的在线状态事件
-        subscribeAllOnlineStateEvent();
-    }
+            // 重置订阅有效期管理
+            SubscribeExpiryManager.reset();
+
+            // 订阅好友、最近联系人中非好友的在线状态事件
+            subscribeAllOnlineStateEvent();
+        }
+    };
 
+    private static RateLimiter getSubsLimiter() {
+        if (subsLimiter == null) {
+            subsLimiter = new RateLimiter(SUBS_BURST, SUBS_FREQ, Handlers.sharedHandler(DemoCache.getContext()));
 
-    private static long getSubsTimeInterval() {
-        if (lastSubsTime < 0) {
-            lastSubsTime = UserPreferences.getOnlineStateSubsTime();
+            // 上次进程中刚订阅过
+            if (System.currentTimeMillis() - UserPreferences.getOnlineStateSubsTime() < SUBS_FREQ) {
+                subsLimiter.drain(SUBS_KEY);
+            }
         }
-        return System.currentTimeMillis() - lastSubsTime;
+
+        return subsLimiter;
     }
 
     private static void updateLastSubsTime() {
-        lastSubsTime = System.currentTimeMillis();
-        UserPreferences.setOnlineStateSubsTime(lastSubsTime);
+        UserPreferences.setOnlineStateSubsTime(System.currentTimeMillis());
+
+        // 刚订阅过，下次全量订阅需等待一个周期
+        getSubsLimiter().drain(SUBS_KEY);
     }
 
 
@@ -115,7 +115,8 @@ public class NimGeocoder {
         }
 
         if (taskManager == null) {
-            TaskExecutor.Config config = new TaskExecutor.Config(0, 3, 30 * 1000, true);
+            // 地址查询相互独立、没有优先级，用工作窃取模式保证3个查询并行
+            TaskExecutor.Config config = new TaskExecutor.Config(0, 3, 30 * 1000, true, TaskExecutor.MODE_WORK_STEALING, 0);
             taskManager = new DefaultTaskManager(new DefaultTaskWorker(TAG, config));
         }
 
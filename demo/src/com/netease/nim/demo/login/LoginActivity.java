@@ -535,7 +535,7 @@ public class LoginActivity extends UI implements OnKeyListener {
         initNotificationConfig();
 
         // 构建缓存
-        DataCacheManager.buildDataCacheAsync();
+        DataCacheManager.buildDataCache();
         NimUIKit.getImageLoaderKit().buildImageCache();
 
         // 进入主界面，此时可以查询数据（最近联系人列表、本地消息历史、群资料等都可以查询，但当云信服务器发起请求会返回408超时）
@@ -39,6 +39,7 @@ import com.netease.nim.demo.session.viewholder.MsgViewHolderTip;
 import com.netease.nim.demo.team.TeamAVChatHelper;
 import com.netease.nim.uikit.NimUIKit;
 import com.netease.nim.uikit.cache.RobotInfoCache;
+import com.netease.nim.uikit.cache.SimpleCallback;
 import com.netease.nim.uikit.cache.TeamDataCache;
 import com.netease.nim.uikit.common.ui.dialog.EasyAlertDialogHelper;
 import com.netease.nim.uikit.common.ui.popupmenu.NIMPopupMenu;
@@ -383,13 +384,24 @@ public class SessionHelper {
 
             SessionCustomization.OptionsButton infoButton = new SessionCustomization.OptionsButton() {
                 @Override
-                public void onClick(Context context, View view, String sessionId) {
+                public void onClick(final Context context, View view, String sessionId) {
                     Team team = TeamDataCache.getInstance().getTeamById(sessionId);
-                    if (team != null && team.isMyTeam()) {
-                        NimUIKit.startTeamInfo(context, sessionId);
-                    } else {
-                        Toast.makeText(context, R.string.team_invalid_tip, Toast.LENGTH_SHORT).show();
+                    if (team != null) {
+                        startTeamInfo(context, team);
+                        return;
                     }
+
+                    // 缓存未命中不代表群已失效，查询后再判断
+                    TeamDataCache.getInstance().fetchTeamById(sessionId, new SimpleCallback<Team>() {
+                        @Override
+                        public void onResult(boolean success, Team result) {
+                            if (success && result != null) {
+                                startTeamInfo(context, result);
+                            } else {
+                                Toast.makeText(context, R.string.team_invalid_tip, Toast.LENGTH_SHORT).show();
+                            }
+                        }
+                    });
                 }
             };
             infoButton.iconId = R.drawable.nim_ic_message_actionbar_team;
@@ -408,6 +420,14 @@ public class SessionHelper {
      * 当用户自定义消息时，可以根据消息附件类型注册对应的消息项展示 ViewHolder
      * —— 在Application初始化中注册
      */
+    private static void startTeamInfo(Context context, Team team) {
+        if (team.isMyTeam()) {
+            NimUIKit.startTeamInfo(context, team.getId());
+        } else {
+            Toast.makeText(context, R.string.team_invalid_tip, Toast.LENGTH_SHORT).show();
+        }
+    }
+
     private static void registerViewHolders() {
         NimUIKit.registerMsgItemViewHolder(FileAttachment.class, MsgViewHolderFile.class);
         NimUIKit.registerMsgItemViewHolder(AVChatAttachment.class, MsgViewHolderAVChat.class);
@@ -2,6 +2,7 @@ package com.netease.nim.demo.session.extension;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.netease.nim.uikit.common.framework.ParseCache;
 import com.netease.nimlib.sdk.msg.attachment.MsgAttachment;
 import com.netease.nimlib.sdk.msg.attachment.MsgAttachmentParser;
 
@@ -13,14 +14,53 @@ public class CustomAttachParser implements MsgAttachmentParser {
     private static final String KEY_TYPE = "type";
     private static final String KEY_DATA = "data";
 
+    private static final int MAX_CACHED_PAYLOAD = 500;
+
+    /**
+     * 解析后的自定义消息内容，缓存共享，只读
+     */
+    public static class Payload {
+        final int type;
+
+        final JSONObject data;
+
+        public Payload(int type, JSONObject data) {
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    public static final ParseCache.Parser<Payload> FASTJSON_PARSER = new ParseCache.Parser<Payload>() {
+        @Override
+        public Payload parse(String content) {
+            JSONObject object = JSON.parseObject(content);
+            return new Payload(object.getInteger(KEY_TYPE), object.getJSONObject(KEY_DATA));
+        }
+    };
+
+    // SDK解析附件时不提供消息uuid，只按内容缓存
+    private final ParseCache<Payload> payloadCache;
+
+    public CustomAttachParser() {
+        this(FASTJSON_PARSER);
+    }
+
+    public CustomAttachParser(ParseCache.Parser<Payload> parser) {
+        payloadCache = new ParseCache<>(MAX_CACHED_PAYLOAD, parser);
+    }
+
     @Override
     public MsgAttachment parse(String json) {
         CustomAttachment attachment = null;
         try {
-            JSONObject object = JSON.parseObject(json);
-            int type = object.getInteger(KEY_TYPE);
-            JSONObject data = object.getJSONObject(KEY_DATA);
-            switch (type) {
+            // 每次都创建新的附件对象，附件可被修改（如阅后即焚的本地路径），不能共享
+            Payload payload = payloadCache.get(null, json);
+            if (payload == null) {
+                return null;
+            }
+
+            JSONObject data = payload.data;
+            switch (payload.type) {
                 case CustomAttachmentType.Guess:
                     attachment = new GuessAttachment();
                     break;
@@ -7,6 +7,7 @@ import android.util.Log;
 
 import com.netease.nim.uikit.cache.DataCacheManager;
 import com.netease.nim.uikit.cache.TeamDataCache;
+import com.netease.nim.uikit.cache.SimpleCallback;
 import com.netease.nim.uikit.common.util.log.LogUtil;
 import com.netease.nim.uikit.common.util.storage.StorageType;
 import com.netease.nim.uikit.common.util.storage.StorageUtil;
@@ -247,7 +248,7 @@ public final class NimUIKit {
                 // 一般来说， APP 开发者在登录完成后可以开始构建数据缓存：登录完成后立即从 SDK 读取数据构建缓存，此时加载到的可能是旧数据；
                 // 在 Application 的 onCreate 中注册 XXXServiceObserver 来监听数据变化，
                 // 那么在同步过程中， APP 会收到数据更新通知，此时直接更新缓存。当同步完成时，缓存也就构建完成了。
-                DataCacheManager.buildDataCacheAsync();
+                DataCacheManager.buildDataCache(); // 同步从快照恢复，SDK构建在后台进行
                 // 构建图像缓存
                 getImageLoaderKit().buildImageCache();
                 callback.onSuccess(loginInfo);
@@ -330,11 +331,26 @@ public final class NimUIKit {
      * @param context 上下文
      * @param teamId  群id
      */
-    public static void startTeamInfo(Context context, String teamId) {
+    public static void startTeamInfo(final Context context, final String teamId) {
         Team team = TeamDataCache.getInstance().getTeamById(teamId);
-        if (team == null) {
+        if (team != null) {
+            startTeamInfo(context, team);
             return;
         }
+
+        // 缓存未命中，查询后再打开
+        TeamDataCache.getInstance().fetchTeamById(teamId, new SimpleCallback<Team>() {
+            @Override
+            public void onResult(boolean success, Team result) {
+                if (success && result != null) {
+                    startTeamInfo(context, result);
+                }
+            }
+        });
+    }
+
+    private static void startTeamInfo(Context context, Team team) {
+        String teamId = team.getId();
         if (team.getType() == TeamTypeEnum.Advanced) {
             AdvancedTeamInfoActivity.start(context, teamId); // 启动固定群资料页
         } else if (team.getType() == TeamTypeEnum.Normal) {
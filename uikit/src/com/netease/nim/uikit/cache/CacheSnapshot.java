@@ -0,0 +1,706 @@
+package com.netease.nim.uikit.cache;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+
+import com.alibaba.fastjson.JSON;
+import com.netease.nim.uikit.NimUIKit;
+import com.netease.nim.uikit.common.framework.NimSingleThreadExecutor;
+import com.netease.nim.uikit.common.util.log.LogUtil;
+import com.netease.nim.uikit.common.util.string.MD5;
+import com.netease.nimlib.sdk.friend.model.Friend;
+import com.netease.nimlib.sdk.robot.model.NimRobotInfo;
+import com.netease.nimlib.sdk.team.constant.TeamBeInviteModeEnum;
+import com.netease.nimlib.sdk.team.constant.TeamExtensionUpdateModeEnum;
+import com.netease.nimlib.sdk.team.constant.TeamInviteModeEnum;
+import com.netease.nimlib.sdk.team.constant.TeamTypeEnum;
+import com.netease.nimlib.sdk.team.constant.TeamUpdateModeEnum;
+import com.netease.nimlib.sdk.team.constant.VerifyTypeEnum;
+import com.netease.nimlib.sdk.team.model.Team;
+import com.netease.nimlib.sdk.uinfo.constant.GenderEnum;
+import com.netease.nimlib.sdk.uinfo.model.NimUserInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 用户资料/好友/群/机器人缓存的本地快照，用于启动时在SDK查询完成前即可展示名称和头像。
+ * <p/>
+ * 格式：MAGIC(int) VERSION(int) LENGTH(int) CRC32(long) PAYLOAD，PAYLOAD依次为好友、好友帐号、用户资料、群、机器人各段，
+ * 每段为数量加逐条记录；字符串为长度(-1为null)加UTF-8字节。
+ * 缓存变更后延迟异步写入（先写临时文件再重命名），启动时一次顺序读入并校验，之后由SDK数据构建时校正。
+ */
+public class CacheSnapshot {
+
+    private static final String TAG = "CacheSnapshot";
+
+    private static final int MAGIC = 0x4E494D43; // NIMC
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+
+    private static final long SAVE_DELAY = 3 * 1000; // 变更后延迟写入，合并连续变更
+
+    private static final String DIR = "nim_cache_snapshot";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+
+    private static volatile String saveAccount; // 发起写入时登录的账号
+
+    private static final Runnable saveRunnable = new Runnable() {
+        @Override
+        public void run() {
+            final String account = saveAccount;
+            NimSingleThreadExecutor.getInstance().execute(new Runnable() {
+                @Override
+                public void run() {
+                    save(account);
+                }
+            });
+        }
+    };
+
+    /**
+     * 缓存已变更，延迟写入当前账号的快照
+     */
+    public static void scheduleSave() {
+        saveAccount = NimUIKit.getAccount();
+        handler.removeCallbacks(saveRunnable);
+        handler.postDelayed(saveRunnable, SAVE_DELAY);
+    }
+
+    public static void cancelSave() {
+        handler.removeCallbacks(saveRunnable);
+    }
+
+    /**
+     * 将快照恢复到各个缓存
+     *
+     * @return 是否恢复成功
+     */
+    public static boolean restore() {
+        File file = getFile(NimUIKit.getAccount());
+        if (file == null || !file.exists()) {
+            return false;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            byte[] data = readFully(file);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+            // validate
+            if (data.length < HEADER_SIZE || in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LogUtil.i(TAG, "snapshot version mismatch, discard");
+                file.delete();
+                return false;
+            }
+
+            int length = in.readInt();
+            long crc = in.readLong();
+            if (length != data.length - HEADER_SIZE || crc(data, HEADER_SIZE, length) != crc) {
+                LogUtil.e(TAG, "snapshot corrupted, discard");
+                file.delete();
+                return false;
+            }
+
+            // friends
+            int count = in.readInt();
+            List<Friend> friends = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                friends.add(readFriend(in));
+            }
+
+            count = in.readInt();
+            List<String> friendAccounts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                friendAccounts.add(readString(in));
+            }
+
+            // users
+            count = in.readInt();
+            List<NimUserInfo> users = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                users.add(readUser(in));
+            }
+
+            // teams
+            count = in.readInt();
+            List<Team> teams = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                teams.add(readTeam(in));
+            }
+
+            // robots
+            count = in.readInt();
+            List<NimRobotInfo> robots = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                robots.add(readRobot(in));
+            }
+
+            // friend first, user info pinning depends on it
+            FriendDataCache.getInstance().restore(friends, friendAccounts);
+            NimUserInfoCache.getInstance().restore(users);
+            TeamDataCache.getInstance().restore(teams);
+            RobotInfoCache.getInstance().restore(robots);
+
+            LogUtil.i(TAG, "restore snapshot cost " + (System.currentTimeMillis() - start) + "ms, friends "
+                    + friendAccounts.size() + " users " + users.size() + " teams " + teams.size() + " robots " + robots.size());
+
+            return true;
+        } catch (Throwable tr) {
+            LogUtil.e(TAG, "restore snapshot error, " + tr);
+            file.delete();
+            return false;
+        }
+    }
+
+    /**
+     * 写入快照（在缓存构建线程执行）
+     *
+     * @param account 发起写入时登录的账号，已切换账号则不写入
+     */
+    static void save(String account) {
+        if (DataCacheManager.isBuilding()) {
+            // 构建完成后会再次写入
+            return;
+        }
+
+        if (!TextUtils.equals(account, NimUIKit.getAccount())) {
+            return;
+        }
+
+        File file = getFile(account);
+        if (file == null) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            // header placeholder
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(0);
+            out.writeLong(0);
+
+            Collection<Friend> friends = FriendDataCache.getInstance().getFriends();
+            out.writeInt(friends.size());
+            for (Friend f : friends) {
+                writeFriend(out, f);
+            }
+
+            List<String> friendAccounts = FriendDataCache.getInstance().getMyFriendAccounts();
+            out.writeInt(friendAccounts.size());
+            for (String friendAccount : friendAccounts) {
+                writeString(out, friendAccount);
+            }
+
+            List<NimUserInfo> users = NimUserInfoCache.getInstance().getCachedUsers();
+            out.writeInt(users.size());
+            for (NimUserInfo u : users) {
+                writeUser(out, u);
+            }
+
+            List<Team> teams = TeamDataCache.getInstance().getAllTeams();
+            out.writeInt(teams.size());
+            for (Team t : teams) {
+                writeTeam(out, t);
+            }
+
+            List<NimRobotInfo> robots = RobotInfoCache.getInstance().getAllRobotAccounts();
+            out.writeInt(robots.size());
+            for (NimRobotInfo r : robots) {
+                writeRobot(out, r);
+            }
+
+            out.flush();
+            byte[] data = bytes.toByteArray();
+
+            // header
+            int length = data.length - HEADER_SIZE;
+            putInt(data, 8, length);
+            putLong(data, 12, crc(data, HEADER_SIZE, length));
+
+            // write temp file, then rename
+            File tmp = new File(file.getPath() + ".tmp");
+            FileOutputStream fos = new FileOutputStream(tmp);
+            try {
+                fos.write(data);
+                fos.getFD().sync();
+            } finally {
+                fos.close();
+            }
+
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                LogUtil.e(TAG, "save snapshot rename failed");
+                return;
+            }
+
+            LogUtil.i(TAG, "save snapshot cost " + (System.currentTimeMillis() - start) + "ms, size " + data.length);
+        } catch (Throwable tr) {
+            LogUtil.e(TAG, "save snapshot error, " + tr);
+        }
+    }
+
+    private static File getFile(String account) {
+        Context context = NimUIKit.getContext();
+        if (context == null || TextUtils.isEmpty(account)) {
+            return null;
+        }
+
+        File dir = new File(context.getFilesDir(), DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            return null;
+        }
+
+        return new File(dir, MD5.getStringMD5(account));
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            byte[] data = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < data.length) {
+                int read = fis.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    throw new IOException("unexpected end of snapshot");
+                }
+                offset += read;
+            }
+
+            return data;
+        } finally {
+            fis.close();
+        }
+    }
+
+    private static long crc(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return crc.getValue();
+    }
+
+    private static void putInt(byte[] data, int offset, int v) {
+        data[offset] = (byte) (v >>> 24);
+        data[offset + 1] = (byte) (v >>> 16);
+        data[offset + 2] = (byte) (v >>> 8);
+        data[offset + 3] = (byte) v;
+    }
+
+    private static void putLong(byte[] data, int offset, long v) {
+        putInt(data, offset, (int) (v >>> 32));
+        putInt(data, offset + 4, (int) v);
+    }
+
+    /**
+     * ******************************* 记录读写 *********************************
+     */
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = s.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void writeFriend(DataOutputStream out, Friend f) throws IOException {
+        writeString(out, f.getAccount());
+        writeString(out, f.getAlias());
+        writeString(out, f.getExtension() != null ? JSON.toJSONString(f.getExtension()) : null);
+    }
+
+    private static Friend readFriend(DataInputStream in) throws IOException {
+        SnapshotFriend f = new SnapshotFriend();
+        f.account = readString(in);
+        f.alias = readString(in);
+        f.extension = readString(in);
+        return f;
+    }
+
+    private static void writeUser(DataOutputStream out, NimUserInfo u) throws IOException {
+        writeString(out, u.getAccount());
+        writeString(out, u.getName());
+        writeString(out, u.getAvatar());
+        writeString(out, u.getSignature());
+        GenderEnum gender = u.getGenderEnum();
+        out.writeInt(gender != null && gender.getValue() != null ? gender.getValue() : -1);
+        writeString(out, u.getEmail());
+        writeString(out, u.getBirthday());
+        writeString(out, u.getMobile());
+        writeString(out, u.getExtension());
+    }
+
+    private static NimUserInfo readUser(DataInputStream in) throws IOException {
+        SnapshotUserInfo u = new SnapshotUserInfo();
+        u.account = readString(in);
+        u.name = readString(in);
+        u.avatar = readString(in);
+        u.signature = readString(in);
+        int gender = in.readInt();
+        u.gender = gender >= 0 ? GenderEnum.genderOfValue(gender) : null;
+        u.email = readString(in);
+        u.birthday = readString(in);
+        u.mobile = readString(in);
+        u.extension = readString(in);
+        return u;
+    }
+
+    private static void writeTeam(DataOutputStream out, Team t) throws IOException {
+        writeString(out, t.getId());
+        writeString(out, t.getName());
+        writeString(out, t.getIcon());
+        out.writeInt(t.getType() != null ? t.getType().getValue() : -1);
+        writeString(out, t.getAnnouncement());
+        writeString(out, t.getIntroduce());
+        writeString(out, t.getCreator());
+        out.writeInt(t.getMemberCount());
+        out.writeInt(t.getMemberLimit());
+        out.writeInt(t.getVerifyType() != null ? t.getVerifyType().getValue() : -1);
+        out.writeLong(t.getCreateTime());
+        out.writeBoolean(t.isMyTeam());
+        writeString(out, t.getExtension());
+        writeString(out, t.getExtServer());
+        out.writeBoolean(t.mute());
+        out.writeInt(t.getTeamInviteMode() != null ? t.getTeamInviteMode().getValue() : -1);
+        out.writeInt(t.getTeamBeInviteMode() != null ? t.getTeamBeInviteMode().getValue() : -1);
+        out.writeInt(t.getTeamUpdateMode() != null ? t.getTeamUpdateMode().getValue() : -1);
+        out.writeInt(t.getTeamExtensionUpdateMode() != null ? t.getTeamExtensionUpdateMode().getValue() : -1);
+        out.writeBoolean(t.isAllMute());
+    }
+
+    private static Team readTeam(DataInputStream in) throws IOException {
+        SnapshotTeam t = new SnapshotTeam();
+        t.id = readString(in);
+        t.name = readString(in);
+        t.icon = readString(in);
+        int type = in.readInt();
+        t.type = type >= 0 ? TeamTypeEnum.typeOfValue(type) : null;
+        t.announcement = readString(in);
+        t.introduce = readString(in);
+        t.creator = readString(in);
+        t.memberCount = in.readInt();
+        t.memberLimit = in.readInt();
+        int verifyType = in.readInt();
+        t.verifyType = verifyType >= 0 ? VerifyTypeEnum.typeOfValue(verifyType) : null;
+        t.createTime = in.readLong();
+        t.myTeam = in.readBoolean();
+        t.extension = readString(in);
+        t.extServer = readString(in);
+        t.mute = in.readBoolean();
+        int mode = in.readInt();
+        t.inviteMode = mode >= 0 ? TeamInviteModeEnum.typeOfValue(mode) : null;
+        mode = in.readInt();
+        t.beInviteMode = mode >= 0 ? TeamBeInviteModeEnum.typeOfValue(mode) : null;
+        mode = in.readInt();
+        t.updateMode = mode >= 0 ? TeamUpdateModeEnum.typeOfValue(mode) : null;
+        mode = in.readInt();
+        t.extensionUpdateMode = mode >= 0 ? TeamExtensionUpdateModeEnum.typeOfValue(mode) : null;
+        t.allMute = in.readBoolean();
+        return t;
+    }
+
+    private static void writeRobot(DataOutputStream out, NimRobotInfo r) throws IOException {
+        writeString(out, r.getAccount());
+        writeString(out, r.getName());
+        writeString(out, r.getAvatar());
+        writeString(out, r.getBotId());
+        writeString(out, r.getIntroduce());
+    }
+
+    private static NimRobotInfo readRobot(DataInputStream in) throws IOException {
+        SnapshotRobot r = new SnapshotRobot();
+        r.account = readString(in);
+        r.name = readString(in);
+        r.avatar = readString(in);
+        r.botId = readString(in);
+        r.introduce = readString(in);
+        return r;
+    }
+
+    /**
+     * ******************************* 快照数据模型 *********************************
+     */
+
+    private static final class SnapshotFriend implements Friend {
+        String account;
+        String alias;
+        String extension;
+
+        @Override
+        public String getAccount() {
+            return account;
+        }
+
+        @Override
+        public String getAlias() {
+            return alias;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Map<String, Object> getExtension() {
+            return extension != null ? (Map<String, Object>) JSON.parseObject(extension) : null;
+        }
+    }
+
+    private static final class SnapshotUserInfo implements NimUserInfo {
+        String account;
+        String name;
+        String avatar;
+        String signature;
+        GenderEnum gender;
+        String email;
+        String birthday;
+        String mobile;
+        String extension;
+
+        @Override
+        public String getAccount() {
+            return account;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getAvatar() {
+            return avatar;
+        }
+
+        @Override
+        public String getSignature() {
+            return signature;
+        }
+
+        @Override
+        public GenderEnum getGenderEnum() {
+            return gender;
+        }
+
+        @Override
+        public String getEmail() {
+            return email;
+        }
+
+        @Override
+        public String getBirthday() {
+            return birthday;
+        }
+
+        @Override
+        public String getMobile() {
+            return mobile;
+        }
+
+        @Override
+        public String getExtension() {
+            return extension;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Map<String, Object> getExtensionMap() {
+            return !TextUtils.isEmpty(extension) ? (Map<String, Object>) JSON.parseObject(extension) : null;
+        }
+    }
+
+    private static final class SnapshotTeam implements Team {
+        String id;
+        String name;
+        String icon;
+        TeamTypeEnum type;
+        String announcement;
+        String introduce;
+        String creator;
+        int memberCount;
+        int memberLimit;
+        VerifyTypeEnum verifyType;
+        long createTime;
+        boolean myTeam;
+        String extension;
+        String extServer;
+        boolean mute;
+        TeamInviteModeEnum inviteMode;
+        TeamBeInviteModeEnum beInviteMode;
+        TeamUpdateModeEnum updateMode;
+        TeamExtensionUpdateModeEnum extensionUpdateMode;
+        boolean allMute;
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getIcon() {
+            return icon;
+        }
+
+        @Override
+        public TeamTypeEnum getType() {
+            return type;
+        }
+
+        @Override
+        public String getAnnouncement() {
+            return announcement;
+        }
+
+        @Override
+        public String getIntroduce() {
+            return introduce;
+        }
+
+        @Override
+        public String getCreator() {
+            return creator;
+        }
+
+        @Override
+        public int getMemberCount() {
+            return memberCount;
+        }
+
+        @Override
+        public int getMemberLimit() {
+            return memberLimit;
+        }
+
+        @Override
+        public VerifyTypeEnum getVerifyType() {
+            return verifyType;
+        }
+
+        @Override
+        public long getCreateTime() {
+            return createTime;
+        }
+
+        @Override
+        public boolean isMyTeam() {
+            return myTeam;
+        }
+
+        @Override
+        public void setExtension(String extension) {
+            this.extension = extension;
+        }
+
+        @Override
+        public String getExtension() {
+            return extension;
+        }
+
+        @Override
+        public String getExtServer() {
+            return extServer;
+        }
+
+        @Override
+        public boolean mute() {
+            return mute;
+        }
+
+        @Override
+        public TeamInviteModeEnum getTeamInviteMode() {
+            return inviteMode;
+        }
+
+        @Override
+        public TeamBeInviteModeEnum getTeamBeInviteMode() {
+            return beInviteMode;
+        }
+
+        @Override
+        public TeamUpdateModeEnum getTeamUpdateMode() {
+            return updateMode;
+        }
+
+        @Override
+        public TeamExtensionUpdateModeEnum getTeamExtensionUpdateMode() {
+            return extensionUpdateMode;
+        }
+
+        @Override
+        public boolean isAllMute() {
+            return allMute;
+        }
+    }
+
+    private static final class SnapshotRobot implements NimRobotInfo {
+        String account;
+        String name;
+        String avatar;
+        String botId;
+        String introduce;
+
+        @Override
+        public String getAccount() {
+            return account;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getAvatar() {
+            return avatar;
+        }
+
+        @Override
+        public String getBotId() {
+            return botId;
+        }
+
+        @Override
+        public String getIntroduce() {
+            return introduce;
+        }
+    }
+}
@@ -1,9 +1,23 @@
 package com.netease.nim.uikit.cache;
 
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import com.netease.nim.uikit.NimUIKit;
+
 import com.netease.nim.uikit.common.framework.NimSingleThreadExecutor;
+import com.netease.nim.uikit.common.framework.NimTaskExecutor;
 import com.netease.nim.uikit.common.util.log.LogUtil;
+import com.netease.nim.uikit.contact.core.query.ContactSearchIndex;
+import com.netease.nim.uikit.contact.core.query.PinYin;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * UIKit缓存数据管理类
@@ -22,45 +36,360 @@ public class DataCacheManager {
         NimUserInfoCache.getInstance().registerObservers(register);
         TeamDataCache.getInstance().registerObservers(register);
         RobotInfoCache.getInstance().registerObservers(register);
+        ContactSearchIndex.getInstance().registerObservers(register);
+        DisplayNameResolver.getInstance().registerObservers(register);
     }
 
     /**
-     * 本地缓存构建(异步)
+     * 缓存及其依赖，没有依赖关系的缓存并行构建
+     */
+    public enum Cache {
+        FRIEND,
+        USER(FRIEND), // 好友用户资料预加载依赖好友帐号
+        TEAM,
+        ROBOT,
+        SEARCH_INDEX(FRIEND, USER); // 通讯录搜索索引
+
+        final Cache[] dependencies;
+
+        Cache(Cache... dependencies) {
+            this.dependencies = dependencies;
+        }
+    }
+
+    private static final NimTaskExecutor executor = new NimTaskExecutor("NIM_CACHE_BUILD_EXECUTOR",
+            new NimTaskExecutor.Config(Cache.values().length, Cache.values().length, 10 * 1000, true));
+
+    private static volatile Build currentBuild;
+
+    private static final AtomicInteger generation = new AtomicInteger(); // 清空缓存时递增，之前的构建作废
+
+    private static final AtomicInteger building = new AtomicInteger();
+
+    private static final Object publishLock = new Object(); // 清空、快照恢复和构建结果写入缓存互斥
+
+    /**
+     * 本地缓存构建(异步)，清空、快照恢复和从SDK构建都在后台执行
      */
     public static void buildDataCacheAsync() {
+        final Build build = newBuild();
+
         NimSingleThreadExecutor.getInstance().execute(new Runnable() {
             @Override
             public void run() {
-                buildDataCache();
-
-                LogUtil.i(TAG, "build data cache completed");
+                if (build.prepare()) {
+                    build.start();
+                }
             }
         });
     }
 
     /**
-     * 本地缓存构建（同步）
+     * 本地缓存构建
+     * 在调用线程清空缓存并从本地快照恢复（一次顺序读），返回后界面即可展示快照中的数据；
+     * 随后在后台从SDK并行构建并校正各个缓存，进度见 {@link #getReadyFuture(Cache)}
      */
     public static void buildDataCache() {
-        // clear
-        clearDataCache();
-
-        // build user/friend/team data cache
-        FriendDataCache.getInstance().buildCache();
-        NimUserInfoCache.getInstance().buildCache();
-        TeamDataCache.getInstance().buildCache();
-        RobotInfoCache.getInstance().buildCache();
+        Build build = newBuild();
+        if (build.prepare()) {
+            build.start();
+        }
+    }
+
+    private static Build newBuild() {
+        Build previous;
+        Build build;
+        synchronized (publishLock) {
+            previous = currentBuild;
+            build = new Build(NimUIKit.getAccount(), generation.get());
+            currentBuild = build; // 之前的构建作废
+        }
+
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        return build;
+    }
+
+    /**
+     * 是否正在从SDK构建缓存
+     */
+    static boolean isBuilding() {
+        return building.get() > 0;
+    }
+
+    /**
+     * 最近一次构建中指定缓存的就绪状态，UI可在自己依赖的缓存就绪后立即展示
+     * 构建作废（登出、重新构建）时未完成的缓存被取消
+     *
+     * @return 未开始过构建时为null
+     */
+    public static Future<Void> getReadyFuture(Cache cache) {
+        Build build = currentBuild;
+        return build != null ? build.stages[cache.ordinal()] : null;
+    }
+
+    public static boolean isReady(Cache cache) {
+        Future<Void> future = getReadyFuture(cache);
+        return future != null && future.isDone() && !future.isCancelled();
+    }
+
+    /**
+     * 最近一次构建各缓存的耗时(ms)，未完成为-1
+     */
+    public static Map<Cache, Long> getBuildTimings() {
+        Map<Cache, Long> timings = new EnumMap<>(Cache.class);
+        Build build = currentBuild;
+        for (Cache cache : Cache.values()) {
+            timings.put(cache, build != null ? build.timings[cache.ordinal()] : -1);
+        }
+
+        return timings;
+    }
+
+    /**
+     * 从SDK读取数据（耗时，不持锁），返回写入缓存的操作
+     */
+    private static Runnable loadCache(Cache cache) {
+        switch (cache) {
+            case FRIEND:
+                return FriendDataCache.getInstance().loadCache();
+            case USER:
+                return NimUserInfoCache.getInstance().loadCache();
+            case TEAM:
+                return TeamDataCache.getInstance().loadCache();
+            case ROBOT:
+                return RobotInfoCache.getInstance().loadCache();
+            case SEARCH_INDEX:
+                return ContactSearchIndex.getInstance().loadIndex();
+            default:
+                throw new IllegalArgumentException("unknown cache " + cache);
+        }
+    }
+
+    /**
+     * 一轮缓存构建：依赖都完成后才提交，构建线程不会阻塞等待依赖
+     * 各阶段先读取数据，持 {@link #publishLock} 确认构建仍有效后才写入缓存，作废的构建不会写入旧账号的数据
+     */
+    private static final class Build {
+        private final String account; // 构建时登录的账号
+
+        private final int generation;
+
+        private final Stage[] stages = new Stage[Cache.values().length];
+
+        private final long[] timings = new long[stages.length];
+
+        private final int[] waiting = new int[stages.length];
+
+        private final AtomicInteger remaining = new AtomicInteger(stages.length);
+
+        private long start;
+
+        Build(String account, int generation) {
+            this.account = account;
+            this.generation = generation;
+            for (Cache cache : Cache.values()) {
+                stages[cache.ordinal()] = new Stage(this, cache);
+                timings[cache.ordinal()] = -1;
+                waiting[cache.ordinal()] = cache.dependencies.length;
+            }
+
+            building.incrementAndGet();
+        }
+
+        /**
+         * 清空缓存并从快照恢复
+         *
+         * @return 构建是否仍有效，作废时取消所有阶段
+         */
+        boolean prepare() {
+            synchronized (publishLock) {
+                if (isCurrent()) {
+                    // clear
+                    clearCaches();
+
+                    // restore snapshot
+                    CacheSnapshot.restore();
+                    return true;
+                }
+            }
+
+            cancel();
+            return false;
+        }
+
+        void start() {
+            start = SystemClock.elapsedRealtime();
+
+            // 拼音表较大，在后台加载，避免通讯录搜索和群/联系人排序时在主线程首次加载
+            NimSingleThreadExecutor.getInstance().execute(new Runnable() {
+                @Override
+                public void run() {
+                    PinYin.warmUp();
+                }
+            });
+
+            // build caches without dependencies
+            for (Cache cache : Cache.values()) {
+                if (cache.dependencies.length == 0) {
+                    executor.execute(stages[cache.ordinal()]);
+                }
+            }
+        }
+
+        void cancel() {
+            for (Stage stage : stages) {
+                stage.cancel(false);
+            }
+        }
+
+        /**
+         * 是否仍是最近一次构建，且之后没有清空缓存、切换账号
+         */
+        boolean isCurrent() {
+            return currentBuild == this && generation == DataCacheManager.generation.get()
+                    && TextUtils.equals(account, NimUIKit.getAccount());
+        }
+
+        void onStageDone(Cache cache) {
+            List<Stage> ready = new ArrayList<>();
+            synchronized (this) {
+                for (Cache c : Cache.values()) {
+                    for (Cache d : c.dependencies) {
+                        if (d == cache && --waiting[c.ordinal()] == 0) {
+                            ready.add(stages[c.ordinal()]);
+                        }
+                    }
+                }
+            }
+
+            for (Stage stage : ready) {
+                if (!stage.isDone()) {
+                    executor.execute(stage);
+                }
+            }
+
+            if (remaining.decrementAndGet() == 0) {
+                onDone();
+            }
+        }
+
+        private void onDone() {
+            building.decrementAndGet();
+
+            // 构建期间已登出或重新构建，不再写入快照，避免旧账号的数据写入新账号的快照
+            if (!isCurrent()) {
+                LogUtil.i(TAG, "build data cache discarded, account=" + account);
+                return;
+            }
+
+            // save snapshot
+            CacheSnapshot.scheduleSave();
+
+            LogUtil.i(TAG, "build data cache cost " + (SystemClock.elapsedRealtime() - start) + "ms, " + getBuildTimings());
+        }
+    }
+
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    /**
+     * 一个缓存的构建阶段，兼作就绪状态的 {@link Future}
+     */
+    private static final class Stage extends FutureTask<Void> {
+        private final Build build;
+
+        private final Cache cache;
+
+        Stage(Build build, Cache cache) {
+            super(NOOP, null); // 构建逻辑见run()
+
+            this.build = build;
+            this.cache = cache;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return; // 已取消
+            }
+
+            long start = SystemClock.elapsedRealtime();
+            boolean published = false;
+            try {
+                if (build.isCurrent()) {
+                    Runnable publish = loadCache(cache);
+                    synchronized (publishLock) {
+                        // 读取数据期间可能已登出，确认后再写入缓存
+                        if (build.isCurrent()) {
+                            publish.run();
+                            published = true;
+                        }
+                    }
+                }
+            } catch (Throwable tr) {
+                setException(tr);
+                return;
+            } finally {
+                build.timings[cache.ordinal()] = SystemClock.elapsedRealtime() - start;
+            }
+
+            if (published) {
+                set(null);
+            } else {
+                cancel(false); // 已作废的构建不写入缓存，也不报告就绪
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (!isCancelled()) {
+                try {
+                    get();
+                } catch (Throwable tr) {
+                    LogUtil.e(TAG, "build " + cache + " cache error, " + tr);
+                }
+            }
+
+            // 构建失败也继续构建依赖它的缓存
+            build.onStageDone(cache);
+        }
     }
 
     /**
-     * 清空缓存（同步）
+     * 清空缓存（同步），进行中的构建作废
      */
     public static void clearDataCache() {
+        Build build;
+        synchronized (publishLock) {
+            generation.incrementAndGet();
+            build = currentBuild;
+            currentBuild = null;
+
+            clearCaches();
+        }
+
+        if (build != null) {
+            build.cancel();
+        }
+    }
+
+    private static void clearCaches() {
+        // 缓存清空后不再写入快照
+        CacheSnapshot.cancelSave();
+
         // clear user/friend/team data cache
         FriendDataCache.getInstance().clear();
         NimUserInfoCache.getInstance().clear();
         TeamDataCache.getInstance().clear();
         RobotInfoCache.getInstance().clear();
+        ContactSearchIndex.getInstance().clear();
+        DisplayNameResolver.getInstance().clear();
     }
 
     /**
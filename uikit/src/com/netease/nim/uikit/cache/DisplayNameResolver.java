@@ -0,0 +1,273 @@
+package com.netease.nim.uikit.cache;
+
+import android.text.TextUtils;
+
+import com.netease.nim.uikit.uinfo.UserInfoHelper;
+import com.netease.nim.uikit.uinfo.UserInfoObservable;
+import com.netease.nimlib.sdk.team.model.Team;
+import com.netease.nimlib.sdk.team.model.TeamMember;
+import com.netease.nimlib.sdk.uinfo.model.NimUserInfo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 显示名称解析（备注>群昵称>昵称>帐号），结果按(account, tid)缓存。
+ * 由好友、用户资料、群成员、群资料的变更通知精确失效对应的缓存项。
+ */
+public class DisplayNameResolver {
+
+    public static DisplayNameResolver getInstance() {
+        return InstanceHolder.instance;
+    }
+
+    /**
+     * 统计快照
+     */
+    public static class Stats {
+        public long hits;
+
+        public long misses;
+
+        public long invalidations;
+
+        public int size;
+
+        public float hitRate() {
+            long total = hits + misses;
+            return total > 0 ? (float) hits / total : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "hits " + hits + " misses " + misses + " hitRate " + hitRate() + " invalidations " + invalidations
+                    + " accounts " + size;
+        }
+    }
+
+    private static final String NO_TEAM = ""; // 非群场景的tid
+
+    private static final int MAX_ACCOUNTS = 5000; // 缓存帐号数上限，超出后整体清空
+
+    // account -> (tid -> 显示名称)
+    private final ConcurrentHashMap<String, Map<String, String>> memo = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    // 同时作为版本号，解析期间发生过失效则不缓存结果
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * 获取显示名称，用户本人也显示昵称
+     *
+     * @param tid     群ID，非群场景为null
+     * @param account 用户帐号
+     */
+    public String resolve(String tid, String account) {
+        if (account == null) {
+            return null;
+        }
+
+        String key = tid != null ? tid : NO_TEAM;
+        Map<String, String> names = memo.get(account);
+        if (names != null) {
+            String name = names.get(key);
+            if (name != null) {
+                hits.incrementAndGet();
+                return name;
+            }
+        }
+
+        misses.incrementAndGet();
+        long version = invalidations.get();
+        String name = compute(tid, account);
+        if (name == null) {
+            return account; // 用户资料未加载时显示帐号，不缓存，资料加载后重新解析
+        }
+
+        if (invalidations.get() != version) {
+            return name;
+        }
+
+        if (names == null) {
+            if (memo.size() >= MAX_ACCOUNTS) {
+                memo.clear();
+            }
+            names = new ConcurrentHashMap<>(4);
+            Map<String, String> old = memo.putIfAbsent(account, names);
+            if (old != null) {
+                names = old;
+            }
+        }
+        names.put(key, name);
+
+        return name;
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.hits = hits.get();
+        stats.misses = misses.get();
+        stats.invalidations = invalidations.get();
+        stats.size = memo.size();
+
+        return stats;
+    }
+
+    public void clear() {
+        invalidations.incrementAndGet();
+        memo.clear();
+    }
+
+    /**
+     * @return 显示名称，用户资料未加载时为null
+     */
+    private String compute(String tid, String account) {
+        NimUserInfoCache userCache = NimUserInfoCache.getInstance();
+        String alias = userCache.getAlias(account);
+        if (!TextUtils.isEmpty(alias)) {
+            return alias;
+        }
+
+        if (tid != null) {
+            String memberNick = TeamDataCache.getInstance().getTeamNick(tid, account);
+            if (!TextUtils.isEmpty(memberNick)) {
+                return memberNick;
+            }
+        }
+
+        NimUserInfo user = userCache.getUserInfo(account);
+        if (user == null) {
+            return null;
+        }
+
+        return !TextUtils.isEmpty(user.getName()) ? user.getName() : account;
+    }
+
+    /**
+     * ************************************ 失效 *****************************************
+     */
+
+    private void invalidate(List<String> accounts) {
+        if (accounts == null) {
+            return;
+        }
+
+        invalidations.incrementAndGet();
+        for (String account : accounts) {
+            memo.remove(account);
+        }
+    }
+
+    private void invalidate(String tid, String account) {
+        invalidations.incrementAndGet();
+        Map<String, String> names = memo.get(account);
+        if (names != null) {
+            names.remove(tid);
+        }
+    }
+
+    private void invalidateTeam(String tid) {
+        invalidations.incrementAndGet();
+        for (Map<String, String> names : memo.values()) {
+            names.remove(tid);
+        }
+    }
+
+    /**
+     * 需先于UI注册，保证UI收到通知时缓存已失效
+     */
+    public void registerObservers(boolean register) {
+        FriendDataCache.getInstance().registerFriendDataChangedObserver(friendDataChangedObserver, register);
+        if (register) {
+            UserInfoHelper.registerObserver(userInfoObserver);
+            TeamDataCache.getInstance().registerTeamDataChangedObserver(teamDataChangedObserver);
+            TeamDataCache.getInstance().registerTeamMemberDataChangedObserver(teamMemberDataChangedObserver);
+        } else {
+            UserInfoHelper.unregisterObserver(userInfoObserver);
+            TeamDataCache.getInstance().unregisterTeamDataChangedObserver(teamDataChangedObserver);
+            TeamDataCache.getInstance().unregisterTeamMemberDataChangedObserver(teamMemberDataChangedObserver);
+        }
+    }
+
+    private FriendDataCache.FriendDataChangedObserver friendDataChangedObserver = new FriendDataCache.FriendDataChangedObserver() {
+        @Override
+        public void onAddedOrUpdatedFriends(List<String> accounts) {
+            invalidate(accounts);
+        }
+
+        @Override
+        public void onDeletedFriends(List<String> accounts) {
+            invalidate(accounts);
+        }
+
+        @Override
+        public void onAddUserToBlackList(List<String> accounts) {
+            // 黑名单不影响显示名称
+        }
+
+        @Override
+        public void onRemoveUserFromBlackList(List<String> accounts) {
+        }
+    };
+
+    private UserInfoObservable.UserInfoObserver userInfoObserver = new UserInfoObservable.UserInfoObserver() {
+        @Override
+        public void onUserInfoChanged(List<String> accounts) {
+            invalidate(accounts);
+        }
+    };
+
+    private TeamDataCache.TeamMemberDataChangedObserver teamMemberDataChangedObserver = new TeamDataCache.TeamMemberDataChangedObserver() {
+        @Override
+        public void onUpdateTeamMember(List<TeamMember> members) {
+            if (members == null) {
+                return;
+            }
+
+            for (TeamMember m : members) {
+                invalidate(m.getTid(), m.getAccount());
+            }
+        }
+
+        @Override
+        public void onRemoveTeamMember(TeamMember member) {
+            if (member != null) {
+                invalidate(member.getTid(), member.getAccount());
+            }
+        }
+    };
+
+    // 群类型决定是否使用群昵称，群资料加载或变更后失效该群
+    private TeamDataCache.TeamDataChangedObserver teamDataChangedObserver = new TeamDataCache.TeamDataChangedObserver() {
+        @Override
+        public void onUpdateTeams(List<Team> teams) {
+            if (teams == null) {
+                return;
+            }
+
+            for (Team t : teams) {
+                invalidateTeam(t.getId());
+            }
+        }
+
+        @Override
+        public void onRemoveTeam(Team team) {
+            if (team != null) {
+                invalidateTeam(team.getId());
+            }
+        }
+    };
+
+    /**
+     * ************************************ 单例 **********************************************
+     */
+
+    static class InstanceHolder {
+        final static DisplayNameResolver instance = new DisplayNameResolver();
+    }
+}
@@ -4,6 +4,7 @@ import android.text.TextUtils;
 
 import com.netease.nim.uikit.NimUIKit;
 import com.netease.nim.uikit.UIKitLogTag;
+import com.netease.nim.uikit.common.framework.ObserverList;
 import com.netease.nim.uikit.common.util.log.LogUtil;
 import com.netease.nimlib.sdk.NIMClient;
 import com.netease.nimlib.sdk.Observer;
@@ -42,7 +43,7 @@ public class FriendDataCache {
 
     private Map<String, Friend> friendMap = new ConcurrentHashMap<>();
 
-    private List<FriendDataChangedObserver> friendObservers = new ArrayList<>();
+    private ObserverList<FriendDataChangedObserver> friendObservers = new ObserverList<>();
 
     /**
      * 初始化&清理
@@ -53,11 +54,15 @@ public class FriendDataCache {
     }
 
     public void buildCache() {
+        loadCache().run();
+    }
+
+    /**
+     * 从SDK读取数据（在构建线程执行），返回写入缓存的操作，见 {@link DataCacheManager}
+     */
+    Runnable loadCache() {
         // 获取我所有的好友关系
-        List<Friend> friends = NIMClient.getService(FriendService.class).getFriends();
-        for (Friend f : friends) {
-            friendMap.put(f.getAccount(), f);
-        }
+        final List<Friend> friends = NIMClient.getService(FriendService.class).getFriends();
 
         /**
          * 获取我所有好友的帐号
@@ -65,21 +70,49 @@ public class FriendDataCache {
          如果使用网易云通信用户关系、用户资料托管，构建通讯录，先获取我所有好友帐号，再根据帐号去获取对应的用户资料，代码示例如下:
          */
         List<String> accounts = NIMClient.getService(FriendService.class).getFriendAccounts();
-        if (accounts == null || accounts.isEmpty()) {
-            return;
+        if (accounts == null) {
+            accounts = new ArrayList<>(0);
+        } else if (!accounts.isEmpty()) {
+            // 排除黑名单
+            List<String> blacks = NIMClient.getService(FriendService.class).getBlackList();
+            accounts.removeAll(blacks);
+
+            // 排除掉自己
+            accounts.remove(NimUIKit.getAccount());
         }
 
-        // 排除黑名单
-        List<String> blacks = NIMClient.getService(FriendService.class).getBlackList();
-        accounts.removeAll(blacks);
+        final List<String> friendAccounts = accounts;
+        return new Runnable() {
+            @Override
+            public void run() {
+                List<String> friendKeys = new ArrayList<>(friends.size());
+                for (Friend f : friends) {
+                    friendMap.put(f.getAccount(), f);
+                    friendKeys.add(f.getAccount());
+                }
+                friendMap.keySet().retainAll(friendKeys); // 校正快照恢复的数据
+
+                // 确定缓存
+                friendAccountSet.addAll(friendAccounts);
+                friendAccountSet.retainAll(friendAccounts);
 
-        // 排除掉自己
-        accounts.remove(NimUIKit.getAccount());
+                LogUtil.i(UIKitLogTag.FRIEND_CACHE, "build FriendDataCache completed, friends count = " + friendAccountSet.size());
+            }
+        };
+    }
 
-        // 确定缓存
+    /**
+     * 从快照恢复
+     */
+    void restore(List<Friend> friends, List<String> accounts) {
+        for (Friend f : friends) {
+            friendMap.put(f.getAccount(), f);
+        }
         friendAccountSet.addAll(accounts);
+    }
 
-        LogUtil.i(UIKitLogTag.FRIEND_CACHE, "build FriendDataCache completed, friends count = " + friendAccountSet.size());
+    List<Friend> getFriends() {
+        return new ArrayList<>(friendMap.values());
     }
 
     private void clearFriendCache() {
@@ -134,13 +167,43 @@ public class FriendDataCache {
             return;
         }
 
-        if (register) {
-            if (!friendObservers.contains(o)) {
-                friendObservers.add(o);
+        friendObservers.register(o, register);
+    }
+
+    private void notifyAddedOrUpdatedFriends(final List<String> accounts) {
+        friendObservers.dispatch(new ObserverList.Action<FriendDataChangedObserver>() {
+            @Override
+            public void run(FriendDataChangedObserver o) {
+                o.onAddedOrUpdatedFriends(accounts);
             }
-        } else {
-            friendObservers.remove(o);
-        }
+        });
+    }
+
+    private void notifyDeletedFriends(final List<String> accounts) {
+        friendObservers.dispatch(new ObserverList.Action<FriendDataChangedObserver>() {
+            @Override
+            public void run(FriendDataChangedObserver o) {
+                o.onDeletedFriends(accounts);
+            }
+        });
+    }
+
+    private void notifyAddUserToBlackList(final List<String> accounts) {
+        friendObservers.dispatch(new ObserverList.Action<FriendDataChangedObserver>() {
+            @Override
+            public void run(FriendDataChangedObserver o) {
+                o.onAddUserToBlackList(accounts);
+            }
+        });
+    }
+
+    private void notifyRemoveUserFromBlackList(final List<String> accounts) {
+        friendObservers.dispatch(new ObserverList.Action<FriendDataChangedObserver>() {
+            @Override
+            public void run(FriendDataChangedObserver o) {
+                o.onRemoveUserFromBlackList(accounts);
+            }
+        });
     }
 
     public interface FriendDataChangedObserver {
@@ -189,9 +252,7 @@ public class FriendDataCache {
 
             // 通知好友关系更新
             if (!friendAccounts.isEmpty()) {
-                for (FriendDataChangedObserver o : friendObservers) {
-                    o.onAddedOrUpdatedFriends(friendAccounts);
-                }
+                notifyAddedOrUpdatedFriends(friendAccounts);
             }
 
             // 处理被删除的好友关系
@@ -206,10 +267,10 @@ public class FriendDataCache {
                 DataCacheManager.Log(deletedFriendAccounts, "on delete friends", UIKitLogTag.FRIEND_CACHE);
 
                 // notify
-                for (FriendDataChangedObserver o : friendObservers) {
-                    o.onDeletedFriends(deletedFriendAccounts);
-                }
+                notifyDeletedFriends(deletedFriendAccounts);
             }
+
+            CacheSnapshot.scheduleSave();
         }
     };
 
@@ -230,9 +291,7 @@ public class FriendDataCache {
                 DataCacheManager.Log(addedAccounts, "on add users to black list", UIKitLogTag.FRIEND_CACHE);
 
                 // notify
-                for (FriendDataChangedObserver o : friendObservers) {
-                    o.onAddUserToBlackList(addedAccounts);
-                }
+                notifyAddUserToBlackList(addedAccounts);
 
                 // 拉黑，要从最近联系人列表中删除该好友
                 for (String account : addedAccounts) {
@@ -252,10 +311,10 @@ public class FriendDataCache {
                 DataCacheManager.Log(removedAccounts, "on remove users from black list", UIKitLogTag.FRIEND_CACHE);
 
                 // 通知观察者
-                for (FriendDataChangedObserver o : friendObservers) {
-                    o.onRemoveUserFromBlackList(removedAccounts);
-                }
+                notifyRemoveUserFromBlackList(removedAccounts);
             }
+
+            CacheSnapshot.scheduleSave();
         }
     };
 
@@ -1,7 +1,9 @@
 package com.netease.nim.uikit.cache;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.text.TextUtils;
-import android.util.Log;
 
 import com.netease.nim.uikit.NimUIKit;
 import com.netease.nim.uikit.UIKitLogTag;
@@ -9,17 +11,20 @@ import com.netease.nim.uikit.common.util.log.LogUtil;
 import com.netease.nimlib.sdk.NIMClient;
 import com.netease.nimlib.sdk.Observer;
 import com.netease.nimlib.sdk.RequestCallback;
-import com.netease.nimlib.sdk.RequestCallbackWrapper;
-import com.netease.nimlib.sdk.ResponseCode;
 import com.netease.nimlib.sdk.friend.model.Friend;
 import com.netease.nimlib.sdk.uinfo.UserService;
 import com.netease.nimlib.sdk.uinfo.UserServiceObserve;
 import com.netease.nimlib.sdk.uinfo.model.NimUserInfo;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * 用户资料数据缓存，适用于用户体系使用网易云信用户资料托管
@@ -32,9 +37,60 @@ public class NimUserInfoCache {
         return InstanceHolder.instance;
     }
 
-    private Map<String, NimUserInfo> account2UserMap = new ConcurrentHashMap<>();
+    private static final long DEFAULT_MAX_WEIGHT = 2 * 1024 * 1024; // 非好友用户资料缓存上限(估算字节)，约一万个
 
-    private Map<String, List<RequestCallback<NimUserInfo>>> requestUserInfoMap = new ConcurrentHashMap<>(); // 重复请求处理
+    private static final long FAILED_RETRY_INTERVAL = 5 * 60 * 1000; // 加载失败的账号，间隔多久后才再次加载
+
+    // 好友和自己固定缓存，其他用户按分段LRU淘汰，未命中时异步从本地数据库/服务器加载
+    private UserInfoStore userStore = new UserInfoStore(DEFAULT_MAX_WEIGHT, new UserInfoStore.Pinning() {
+        @Override
+        public boolean isPinned(String account) {
+            return account.equals(NimUIKit.getAccount()) || FriendDataCache.getInstance().isMyFriend(account);
+        }
+    });
+
+    private UserInfoBatchLoader userInfoLoader = new UserInfoBatchLoader(); // 重复请求处理、合并请求
+
+    // 未命中时读本地数据库的线程，不使用缓存构建线程（NimSingleThreadExecutor），避免启动时排在缓存构建之后
+    private static final Executor missExecutor = Executors.newSingleThreadExecutor();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * 未命中时的加载：先在后台线程读本地数据库，本地没有的再通过 {@link #getUserInfoFromRemote(List, RequestCallback)} 从服务器获取
+     */
+    private final UserInfoBatchLoader.Fetcher localFirstFetcher = new UserInfoBatchLoader.Fetcher() {
+        @Override
+        public void fetch(final List<String> accounts, final RequestCallback<List<NimUserInfo>> callback) {
+            missExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    List<NimUserInfo> result = null;
+                    try {
+                        result = NIMClient.getService(UserService.class).getUserInfoList(accounts);
+                    } catch (Throwable tr) {
+                        LogUtil.e(UIKitLogTag.USER_CACHE, "load local userInfo error, " + tr);
+                    }
+
+                    final List<NimUserInfo> local = result;
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onLocalLoaded(accounts, local, callback);
+                        }
+                    });
+                }
+            });
+        }
+    };
+
+    private UserInfoBatchLoader missLoader = new UserInfoBatchLoader(localFirstFetcher, mainHandler); // 缓存未命中的异步加载
+
+    private final Set<String> loadingAccounts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final Map<String, Long> failedAccounts = new ConcurrentHashMap<>(); // 加载失败的账号 -> 失败时间
+
+    private volatile int generation; // 清空缓存后，之前发起的加载结果丢弃
 
     /**
      * 构建缓存与清理
@@ -45,107 +101,83 @@ public class NimUserInfoCache {
      NimUserInfo user = NIMClient.getService(UserService.class).getUserInfo(account);
      */
     public void buildCache() {
-        List<NimUserInfo> users = NIMClient.getService(UserService.class).getAllUserInfo();
-        addOrUpdateUsers(users, false);
-        LogUtil.i(UIKitLogTag.USER_CACHE, "build NimUserInfoCache completed, users count = " + account2UserMap.size());
-    }
-
-    public void clear() {
-        clearUserCache();
+        loadCache().run();
     }
 
     /**
-     * 从云信服务器获取用户信息（重复请求处理）[异步]
+     * 从SDK读取数据（在构建线程执行），返回写入缓存的操作，见 {@link DataCacheManager}
      */
-    public void getUserInfoFromRemote(final String account, final RequestCallback<NimUserInfo> callback) {
-        if (TextUtils.isEmpty(account)) {
-            return;
+    Runnable loadCache() {
+        // 只预加载好友和自己，其他用户使用时再加载
+        List<String> accounts = FriendDataCache.getInstance().getMyFriendAccounts();
+        if (!TextUtils.isEmpty(NimUIKit.getAccount())) {
+            accounts.add(NimUIKit.getAccount());
         }
-
-        if (requestUserInfoMap.containsKey(account)) {
-            if (callback != null) {
-                requestUserInfoMap.get(account).add(callback);
-            }
-            return; // 已经在请求中，不要重复请求
-        } else {
-            List<RequestCallback<NimUserInfo>> cbs = new ArrayList<>();
-            if (callback != null) {
-                cbs.add(callback);
+        final List<NimUserInfo> users = NIMClient.getService(UserService.class).getUserInfoList(accounts);
+        return new Runnable() {
+            @Override
+            public void run() {
+                addOrUpdateUsers(users, false);
+                userStore.repin(userStore.getPinnedAccounts()); // 校正快照恢复的数据，已不是好友的不再固定
+                LogUtil.i(UIKitLogTag.USER_CACHE, "build NimUserInfoCache completed, users count = " + userStore.size());
             }
-            requestUserInfoMap.put(account, cbs);
-        }
-
-        List<String> accounts = new ArrayList<>(1);
-        accounts.add(account);
+        };
+    }
 
-        /**
-         * 获取服务器用户资料
+    /**
+     * 设置非好友用户资料的缓存上限，可按设备内存等级调整
+     *
+     * @param maxWeight 估算字节数
+     */
+    public void setMaxWeight(long maxWeight) {
+        userStore.setMaxWeight(maxWeight);
+    }
 
-         从服务器获取用户资料，一般在本地用户资料不存在时调用，获取后 SDK 会负责更新本地数据库。代码示例如下：
+    /**
+     * 缓存命中率、淘汰数等统计
+     */
+    public UserInfoStore.Stats getStats() {
+        return userStore.getStats();
+    }
 
-         此接口可以批量从服务器获取用户资料，从用户体验和流量成本考虑，不建议应用频繁调用此接口。对于用户数据实时性要求不高的页面，应尽量调用读取本地缓存接口。
-         */
-        NIMClient.getService(UserService.class).fetchUserInfo(accounts).setCallback(new RequestCallbackWrapper<List<NimUserInfo>>() {
+    public void clear() {
+        clearUserCache();
+    }
 
-            @Override
-            public void onResult(int code, List<NimUserInfo> users, Throwable exception) {
-                if (exception != null) {
-                    callback.onException(exception);
-                    return;
-                }
+    /**
+     * 从快照恢复
+     */
+    void restore(List<NimUserInfo> users) {
+        for (NimUserInfo u : users) {
+            userStore.put(u);
+        }
+    }
 
-                NimUserInfo user = null;
-                boolean hasCallback = requestUserInfoMap.get(account).size() > 0;
-                if (code == ResponseCode.RES_SUCCESS && users != null && !users.isEmpty()) {
-                    user = users.get(0);
-                    // 这里不需要更新缓存，由监听用户资料变更（添加）来更新缓存
-                }
+    List<NimUserInfo> getCachedUsers() {
+        return userStore.values();
+    }
 
-                // 处理回调
-                if (hasCallback) {
-                    List<RequestCallback<NimUserInfo>> cbs = requestUserInfoMap.get(account);
-                    for (RequestCallback<NimUserInfo> cb : cbs) {
-                        if (code == ResponseCode.RES_SUCCESS) {
-                            cb.onSuccess(user);
-                        } else {
-                            cb.onFailed(code);
-                        }
-                    }
-                }
+    /**
+     * 从云信服务器获取用户信息（重复请求处理，短时间内的请求合并为批量请求）[异步]
+     *
+     * 获取服务器用户资料
+     从服务器获取用户资料，一般在本地用户资料不存在时调用，获取后 SDK 会负责更新本地数据库。
+     此接口可以批量从服务器获取用户资料，从用户体验和流量成本考虑，不建议应用频繁调用此接口。对于用户数据实时性要求不高的页面，应尽量调用读取本地缓存接口。
+     这里不需要更新缓存，由监听用户资料变更（添加）来更新缓存
+     */
+    public void getUserInfoFromRemote(final String account, final RequestCallback<NimUserInfo> callback) {
+        if (TextUtils.isEmpty(account)) {
+            return;
+        }
 
-                requestUserInfoMap.remove(account);
-            }
-        });
+        userInfoLoader.load(account, callback);
     }
 
     /**
-     * 从云信服务器获取批量用户信息[异步]
+     * 从云信服务器获取批量用户信息（重复请求处理）[异步]
      */
     public void getUserInfoFromRemote(List<String> accounts, final RequestCallback<List<NimUserInfo>> callback) {
-        NIMClient.getService(UserService.class).fetchUserInfo(accounts).setCallback(new RequestCallback<List<NimUserInfo>>() {
-            @Override
-            public void onSuccess(List<NimUserInfo> users) {
-                Log.i(UIKitLogTag.USER_CACHE, "fetch userInfo completed, add users size =" + users.size());
-                // 这里不需要更新缓存，由监听用户资料变更（添加）来更新缓存
-                if (callback != null) {
-                    callback.onSuccess(users);
-                }
-            }
-
-            @Override
-            public void onFailed(int code) {
-                if (callback != null) {
-                    callback.onFailed(code);
-                }
-            }
-
-            @Override
-            public void onException(Throwable exception) {
-                if (callback != null) {
-                    callback.onException(exception);
-                }
-            }
-        });
+        userInfoLoader.load(accounts, callback);
     }
 
     /**
@@ -173,22 +205,30 @@ public class NimUserInfoCache {
         return users;
     }
 
+    /**
+     * 只读缓存，不阻塞。未命中时返回null，并异步从本地数据库/服务器加载，加载后通过用户资料变更通知UI
+     */
     public NimUserInfo getUserInfo(String account) {
-        if (TextUtils.isEmpty(account) || account2UserMap == null) {
-            LogUtil.e(UIKitLogTag.USER_CACHE, "getUserInfo null, account=" + account + ", account2UserMap=" + account2UserMap);
+        if (TextUtils.isEmpty(account)) {
+            LogUtil.e(UIKitLogTag.USER_CACHE, "getUserInfo null, account=" + account);
             return null;
         }
 
-        return account2UserMap.get(account);
+        NimUserInfo user = userStore.get(account);
+        if (user == null) {
+            loadUserInfoAsync(account);
+        }
+
+        return user;
     }
 
     public boolean hasUser(String account) {
-        if (TextUtils.isEmpty(account) || account2UserMap == null) {
-            LogUtil.e(UIKitLogTag.USER_CACHE, "hasUser null, account=" + account + ", account2UserMap=" + account2UserMap);
+        if (TextUtils.isEmpty(account)) {
+            LogUtil.e(UIKitLogTag.USER_CACHE, "hasUser null, account=" + account);
             return false;
         }
 
-        return account2UserMap.containsKey(account);
+        return userStore.contains(account);
     }
 
     /**
@@ -200,12 +240,7 @@ public class NimUserInfoCache {
      * @return
      */
     public String getUserDisplayName(String account) {
-        String alias = getAlias(account);
-        if (!TextUtils.isEmpty(alias)) {
-            return alias;
-        }
-
-        return getUserName(account);
+        return DisplayNameResolver.getInstance().resolve(null, account);
     }
 
     public String getAlias(String account) {
@@ -243,7 +278,110 @@ public class NimUserInfoCache {
     }
 
     private void clearUserCache() {
-        account2UserMap.clear();
+        generation++;
+        userStore.clear();
+        userInfoLoader.clear();
+        missLoader.clear();
+        loadingAccounts.clear();
+        failedAccounts.clear();
+    }
+
+    /**
+     * 异步加载未命中的用户（已被淘汰或未预加载），同一账号同时只加载一次，加载失败的账号一段时间内不再加载
+     */
+    private void onLocalLoaded(List<String> accounts, List<NimUserInfo> local, final RequestCallback<List<NimUserInfo>> callback) {
+        final List<NimUserInfo> users = local != null ? new ArrayList<>(local) : new ArrayList<NimUserInfo>();
+        Set<String> found = new HashSet<>(users.size());
+        for (NimUserInfo user : users) {
+            found.add(user.getAccount());
+        }
+
+        List<String> missing = new ArrayList<>();
+        for (String account : accounts) {
+            if (!found.contains(account)) {
+                missing.add(account);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            callback.onSuccess(users);
+            return;
+        }
+
+        // 服务器获取失败时，只返回本地读到的
+        getUserInfoFromRemote(missing, new RequestCallback<List<NimUserInfo>>() {
+            @Override
+            public void onSuccess(List<NimUserInfo> remote) {
+                if (remote != null) {
+                    users.addAll(remote);
+                }
+                callback.onSuccess(users);
+            }
+
+            @Override
+            public void onFailed(int code) {
+                callback.onSuccess(users);
+            }
+
+            @Override
+            public void onException(Throwable exception) {
+                callback.onSuccess(users);
+            }
+        });
+    }
+
+    private void loadUserInfoAsync(final String account) {
+        Long failedTime = failedAccounts.get(account);
+        if (failedTime != null) {
+            if (SystemClock.elapsedRealtime() - failedTime < FAILED_RETRY_INTERVAL) {
+                return;
+            }
+            failedAccounts.remove(account);
+        }
+
+        if (!loadingAccounts.add(account)) {
+            return;
+        }
+
+        final int gen = generation;
+        missLoader.load(account, new RequestCallback<NimUserInfo>() {
+            @Override
+            public void onSuccess(NimUserInfo user) {
+                if (gen != generation) {
+                    return;
+                }
+
+                loadingAccounts.remove(account);
+                if (user == null) {
+                    onLoadFailed(account);
+                    return;
+                }
+
+                List<NimUserInfo> users = new ArrayList<>(1);
+                users.add(user);
+                addOrUpdateUsers(users, true);
+            }
+
+            @Override
+            public void onFailed(int code) {
+                if (gen != generation) {
+                    return;
+                }
+
+                loadingAccounts.remove(account);
+                onLoadFailed(account);
+            }
+
+            @Override
+            public void onException(Throwable exception) {
+                onFailed(-1);
+            }
+        });
+    }
+
+    private void onLoadFailed(String account) {
+        failedAccounts.put(account, SystemClock.elapsedRealtime());
+        LogUtil.i(UIKitLogTag.USER_CACHE, "load userInfo failed, account=" + account);
     }
 
     /**
@@ -264,8 +402,34 @@ public class NimUserInfoCache {
      */
     public void registerObservers(boolean register) {
         NIMClient.getService(UserServiceObserve.class).observeUserInfoUpdate(userInfoUpdateObserver, register);
+        FriendDataCache.getInstance().registerFriendDataChangedObserver(friendDataChangedObserver, register);
     }
 
+    /**
+     * 好友关系变化时，更新固定缓存的用户
+     */
+    private FriendDataCache.FriendDataChangedObserver friendDataChangedObserver = new FriendDataCache.FriendDataChangedObserver() {
+        @Override
+        public void onAddedOrUpdatedFriends(List<String> accounts) {
+            userStore.repin(accounts);
+        }
+
+        @Override
+        public void onDeletedFriends(List<String> accounts) {
+            userStore.repin(accounts);
+        }
+
+        @Override
+        public void onAddUserToBlackList(List<String> accounts) {
+            userStore.repin(accounts);
+        }
+
+        @Override
+        public void onRemoveUserFromBlackList(List<String> accounts) {
+            userStore.repin(accounts);
+        }
+    };
+
     /**
      * 监听用户资料变更
      用户资料除自己之外，不保证其他用户资料实时更新。其他用户数据更新时机为：
@@ -298,7 +462,8 @@ public class NimUserInfoCache {
 
         // update cache
         for (NimUserInfo u : users) {
-            account2UserMap.put(u.getAccount(), u);
+            userStore.put(u);
+            failedAccounts.remove(u.getAccount());
         }
 
         // log
@@ -308,6 +473,7 @@ public class NimUserInfoCache {
         // 通知变更
         if (notify && accounts != null && !accounts.isEmpty()) {
             NimUIKit.notifyUserInfoChanged(accounts); // 通知到UI组件
+            CacheSnapshot.scheduleSave();
         }
     }
 
@@ -43,13 +43,37 @@ public class RobotInfoCache {
     }
 
     void buildCache() {
+        loadCache().run();
+    }
+
+    /**
+     * 从SDK读取数据（在构建线程执行），返回写入缓存的操作，见 {@link DataCacheManager}
+     */
+    Runnable loadCache() {
         // 获取所有有效的机器人
-        List<NimRobotInfo> robots = NIMClient.getService(RobotService.class).getAllRobots();
+        final List<NimRobotInfo> robots = NIMClient.getService(RobotService.class).getAllRobots();
+        return new Runnable() {
+            @Override
+            public void run() {
+                List<String> accounts = new ArrayList<>(robots.size());
+                for (NimRobotInfo r : robots) {
+                    robotMap.put(r.getAccount(), r);
+                    accounts.add(r.getAccount());
+                }
+                robotMap.keySet().retainAll(accounts); // 校正快照恢复的数据
+
+                LogUtil.i(UIKitLogTag.ROBOT_CACHE, "build RobotInfoCache completed, robots count = " + robotMap.size());
+            }
+        };
+    }
+
+    /**
+     * 从快照恢复
+     */
+    void restore(List<NimRobotInfo> robots) {
         for (NimRobotInfo r : robots) {
             robotMap.put(r.getAccount(), r);
         }
-
-        LogUtil.i(UIKitLogTag.ROBOT_CACHE, "build RobotInfoCache completed, robots count = " + robotMap.size());
     }
 
     private void clearRobotCache() {
@@ -116,6 +140,8 @@ public class RobotInfoCache {
                 // log
                 DataCacheManager.Log(deletedRobotAccounts, "on delete robots", UIKitLogTag.FRIEND_CACHE);
             }
+
+            CacheSnapshot.scheduleSave();
         }
     };
 
@@ -4,6 +4,7 @@ import android.text.TextUtils;
 
 import com.netease.nim.uikit.NimUIKit;
 import com.netease.nim.uikit.UIKitLogTag;
+import com.netease.nim.uikit.common.framework.ObserverList;
 import com.netease.nim.uikit.common.util.log.LogUtil;
 import com.netease.nimlib.sdk.NIMClient;
 import com.netease.nimlib.sdk.Observer;
@@ -16,8 +17,10 @@ import com.netease.nimlib.sdk.team.model.Team;
 import com.netease.nimlib.sdk.team.model.TeamMember;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -37,6 +40,13 @@ public class TeamDataCache {
     }
 
     public void buildCache() {
+        loadCache().run();
+    }
+
+    /**
+     * 从SDK读取数据（在构建线程执行），返回写入缓存的操作，见 {@link DataCacheManager}
+     */
+    Runnable loadCache() {
         /**
          * 获取群组
 
@@ -59,9 +69,22 @@ public class TeamDataCache {
         final List<Team> teams = NIMClient.getService(TeamService.class).queryTeamListBlock();
         LogUtil.i(UIKitLogTag.TEAM_CACHE, "start build TeamDataCache");
 
-        addOrUpdateTeam(teams);
+        return new Runnable() {
+            @Override
+            public void run() {
+                addOrUpdateTeam(teams);
 
-        LogUtil.i(UIKitLogTag.TEAM_CACHE, "build TeamDataCache completed, team count = " + teams.size());
+                // 校正快照恢复的数据
+                List<String> ids = new ArrayList<>(teams.size());
+                for (Team t : teams) {
+                    ids.add(t.getId());
+                }
+                id2TeamMap.keySet().retainAll(ids);
+                teamIndex.retainAll(ids);
+
+                LogUtil.i(UIKitLogTag.TEAM_CACHE, "build TeamDataCache completed, team count = " + teams.size());
+            }
+        };
     }
 
     public void clear() {
@@ -69,6 +92,13 @@ public class TeamDataCache {
         clearTeamMemberCache();
     }
 
+    /**
+     * 从快照恢复
+     */
+    void restore(List<Team> teams) {
+        addOrUpdateTeam(teams);
+    }
+
     /**
      * *
      * ******************************************** 观察者 ********************************************
@@ -86,8 +116,8 @@ public class TeamDataCache {
         void onRemoveTeamMember(TeamMember member);
     }
 
-    private List<TeamDataChangedObserver> teamObservers = new ArrayList<>();
-    private List<TeamMemberDataChangedObserver> memberObservers = new ArrayList<>();
+    private ObserverList<TeamDataChangedObserver> teamObservers = new ObserverList<>();
+    private ObserverList<TeamMemberDataChangedObserver> memberObservers = new ObserverList<>();
 
     public void registerObservers(boolean register) {
         // 注册/注销观察者 群资料变动观察者通知
@@ -120,6 +150,7 @@ public class TeamDataCache {
             }
             addOrUpdateTeam(teams);
             notifyTeamDataUpdate(teams);
+            CacheSnapshot.scheduleSave();
         }
     };
 
@@ -132,6 +163,7 @@ public class TeamDataCache {
             // team的flag被更新，isMyTeam为false
             addOrUpdateTeam(team);
             notifyTeamDataRemove(team);
+            CacheSnapshot.scheduleSave();
         }
     };
 
@@ -155,51 +187,55 @@ public class TeamDataCache {
     };
 
     public void registerTeamDataChangedObserver(TeamDataChangedObserver o) {
-        if (teamObservers.contains(o)) {
-            return;
-        }
-
-        teamObservers.add(o);
+        teamObservers.register(o);
     }
 
     public void unregisterTeamDataChangedObserver(TeamDataChangedObserver o) {
-        teamObservers.remove(o);
+        teamObservers.unregister(o);
     }
 
     public void registerTeamMemberDataChangedObserver(TeamMemberDataChangedObserver o) {
-        if (memberObservers.contains(o)) {
-            return;
-        }
-
-        memberObservers.add(o);
+        memberObservers.register(o);
     }
 
     public void unregisterTeamMemberDataChangedObserver(TeamMemberDataChangedObserver o) {
-        memberObservers.remove(o);
+        memberObservers.unregister(o);
     }
 
-    private void notifyTeamDataUpdate(List<Team> teams) {
-        for (TeamDataChangedObserver o : teamObservers) {
-            o.onUpdateTeams(teams);
-        }
+    private void notifyTeamDataUpdate(final List<Team> teams) {
+        teamObservers.dispatch(new ObserverList.Action<TeamDataChangedObserver>() {
+            @Override
+            public void run(TeamDataChangedObserver o) {
+                o.onUpdateTeams(teams);
+            }
+        });
     }
 
-    private void notifyTeamDataRemove(Team team) {
-        for (TeamDataChangedObserver o : teamObservers) {
-            o.onRemoveTeam(team);
-        }
+    private void notifyTeamDataRemove(final Team team) {
+        teamObservers.dispatch(new ObserverList.Action<TeamDataChangedObserver>() {
+            @Override
+            public void run(TeamDataChangedObserver o) {
+                o.onRemoveTeam(team);
+            }
+        });
     }
 
-    private void notifyTeamMemberDataUpdate(List<TeamMember> members) {
-        for (TeamMemberDataChangedObserver o : memberObservers) {
-            o.onUpdateTeamMember(members);
-        }
+    private void notifyTeamMemberDataUpdate(final List<TeamMember> members) {
+        memberObservers.dispatch(new ObserverList.Action<TeamMemberDataChangedObserver>() {
+            @Override
+            public void run(TeamMemberDataChangedObserver o) {
+                o.onUpdateTeamMember(members);
+            }
+        });
     }
 
-    private void notifyTeamMemberRemove(TeamMember member) {
-        for (TeamMemberDataChangedObserver o : memberObservers) {
-            o.onRemoveTeamMember(member);
-        }
+    private void notifyTeamMemberRemove(final TeamMember member) {
+        memberObservers.dispatch(new ObserverList.Action<TeamMemberDataChangedObserver>() {
+            @Override
+            public void run(TeamMemberDataChangedObserver o) {
+                o.onRemoveTeamMember(member);
+            }
+        });
     }
 
     /**
@@ -209,8 +245,13 @@ public class TeamDataCache {
 
     private Map<String, Team> id2TeamMap = new ConcurrentHashMap<>();
 
+    // 我加入的群，按类型分组、按名称排序
+    private TeamIndex teamIndex = new TeamIndex();
+
     public void clearTeamCache() {
         id2TeamMap.clear();
+        teamIndex.clear();
+        loadingTeams.clear();
     }
 
     /**
@@ -246,14 +287,17 @@ public class TeamDataCache {
     }
 
     /**
-     * 同步从本地获取Team（先从缓存中查询，如果不存在再从SDK DB中查询）
+     * 从缓存获取Team（不阻塞）。
+     * 缓存中没有时返回null，并异步查询，查到后通过TeamDataChangedObserver通知
      */
     public Team getTeamById(String teamId) {
-        Team team = id2TeamMap.get(teamId);
+        if (TextUtils.isEmpty(teamId)) {
+            return null;
+        }
 
+        Team team = id2TeamMap.get(teamId);
         if (team == null) {
-            team = NIMClient.getService(TeamService.class).queryTeamBlock(teamId);
-            addOrUpdateTeam(team);
+            loadTeamAsync(teamId);
         }
 
         return team;
@@ -265,33 +309,42 @@ public class TeamDataCache {
                 .getName();
     }
 
+    /**
+     * 我加入的所有群，按名称排序，返回不可变列表
+     */
     public List<Team> getAllTeams() {
-        List<Team> teams = new ArrayList<>();
-        for (Team t : id2TeamMap.values()) {
-            if (t.isMyTeam()) {
-                teams.add(t);
-            }
-        }
-        return teams;
+        return teamIndex.getAll();
     }
 
     public List<Team> getAllAdvancedTeams() {
-        return getAllTeamsByType(TeamTypeEnum.Advanced);
+        return teamIndex.getByType(TeamTypeEnum.Advanced);
     }
 
     public List<Team> getAllNormalTeams() {
-        return getAllTeamsByType(TeamTypeEnum.Normal);
+        return teamIndex.getByType(TeamTypeEnum.Normal);
     }
 
-    private List<Team> getAllTeamsByType(TeamTypeEnum type) {
-        List<Team> teams = new ArrayList<>();
-        for (Team t : id2TeamMap.values()) {
-            if (t.isMyTeam() && t.getType() == type) {
-                teams.add(t);
-            }
+    private Set<String> loadingTeams = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private void loadTeamAsync(final String teamId) {
+        if (!loadingTeams.add(teamId)) {
+            return;
         }
 
-        return teams;
+        NIMClient.getService(TeamService.class).queryTeam(teamId).setCallback(new RequestCallbackWrapper<Team>() {
+            @Override
+            public void onResult(int code, Team t, Throwable exception) {
+                loadingTeams.remove(teamId);
+                if (code == ResponseCode.RES_SUCCESS && t != null) {
+                    addOrUpdateTeam(t);
+                    List<Team> teams = new ArrayList<>(1);
+                    teams.add(t);
+                    notifyTeamDataUpdate(teams);
+                } else {
+                    LogUtil.e(UIKitLogTag.TEAM_CACHE, "load team failed, tid=" + teamId + ", code=" + code);
+                }
+            }
+        });
     }
 
     public void addOrUpdateTeam(Team team) {
@@ -300,6 +353,7 @@ public class TeamDataCache {
         }
 
         id2TeamMap.put(team.getId(), team);
+        teamIndex.update(team);
     }
 
     private void addOrUpdateTeam(List<Team> teamList) {
@@ -313,6 +367,7 @@ public class TeamDataCache {
             }
 
             id2TeamMap.put(t.getId(), t);
+            teamIndex.update(t);
         }
     }
 
@@ -321,10 +376,23 @@ public class TeamDataCache {
      * ************************************** 群成员缓存(由App主动添加缓存) ****************************************
      */
 
-    private Map<String, Map<String, TeamMember>> teamMemberCache = new ConcurrentHashMap<>();
+    private static final long DEFAULT_MAX_MEMBER_WEIGHT = 10000; // 缓存群成员总数上限
+
+    // 按群LRU淘汰，未命中时异步整群加载
+    private TeamMemberStore memberStore = new TeamMemberStore(DEFAULT_MAX_MEMBER_WEIGHT);
+
+    private Set<String> loadingMembers = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     public void clearTeamMemberCache() {
-        teamMemberCache.clear();
+        memberStore.clear();
+        loadingMembers.clear();
+    }
+
+    /**
+     * 设置缓存群成员总数上限，可按设备内存等级调整
+     */
+    public void setMaxTeamMemberWeight(long maxWeight) {
+        memberStore.setMaxWeight(maxWeight);
     }
 
     /**
@@ -365,9 +433,9 @@ public class TeamDataCache {
      */
     public List<TeamMember> getTeamMemberList(String teamId) {
         List<TeamMember> members = new ArrayList<>();
-        Map<String, TeamMember> map = teamMemberCache.get(teamId);
-        if (map != null && !map.values().isEmpty()) {
-            for (TeamMember m : map.values()) {
+        List<TeamMember> cached = memberStore.getMembers(teamId);
+        if (cached != null) {
+            for (TeamMember m : cached) {
                 if (m.isInTeam()) {
                     members.add(m);
                 }
@@ -410,23 +478,47 @@ public class TeamDataCache {
     }
 
     /**
-     * 查询群成员资料（先从缓存中查，如果没有则从SDK DB中查询）
+     * 从缓存查询群成员资料（不阻塞）。
+     * 缓存中没有且该群尚未整群加载时返回null，并异步整群加载，加载后通过TeamMemberDataChangedObserver通知
      */
     public TeamMember getTeamMember(String teamId, String account) {
-        Map<String, TeamMember> map = teamMemberCache.get(teamId);
-        if (map == null) {
-            map = new ConcurrentHashMap<>();
-            teamMemberCache.put(teamId, map);
+        if (TextUtils.isEmpty(teamId) || TextUtils.isEmpty(account)) {
+            return null;
         }
 
-        if (!map.containsKey(account)) {
-            TeamMember member = NIMClient.getService(TeamService.class).queryTeamMemberBlock(teamId, account);
-            if (member != null) {
-                map.put(account, member);
-            }
+        TeamMember member = memberStore.get(teamId, account);
+        if (member == null && !memberStore.isComplete(teamId)) {
+            loadTeamMembersAsync(teamId);
         }
 
-        return map.get(account);
+        return member;
+    }
+
+    /**
+     * 整群加载群成员（同一个群同时只有一个请求），代替逐个成员的同步查询
+     */
+    private void loadTeamMembersAsync(final String teamId) {
+        if (!loadingMembers.add(teamId)) {
+            return;
+        }
+
+        NIMClient.getService(TeamService.class).queryMemberList(teamId).setCallback(new RequestCallbackWrapper<List<TeamMember>>() {
+            @Override
+            public void onResult(int code, List<TeamMember> members, Throwable exception) {
+                if (!loadingMembers.remove(teamId)) {
+                    return; // 已清理缓存（如注销）
+                }
+
+                if (code == ResponseCode.RES_SUCCESS && members != null) {
+                    replaceTeamMemberList(teamId, members);
+                    if (!members.isEmpty()) {
+                        notifyTeamMemberDataUpdate(members);
+                    }
+                } else {
+                    LogUtil.e(UIKitLogTag.TEAM_CACHE, "load team members failed, tid=" + teamId + ", code=" + code);
+                }
+            }
+        });
     }
 
     /**
@@ -464,18 +556,7 @@ public class TeamDataCache {
      * 备注>群昵称>昵称
      */
     public String getDisplayNameWithoutMe(String tid, String account) {
-
-        String alias = NimUserInfoCache.getInstance().getAlias(account);
-        if (!TextUtils.isEmpty(alias)) {
-            return alias;
-        }
-
-        String memberNick = getTeamNick(tid, account);
-        if (!TextUtils.isEmpty(memberNick)) {
-            return memberNick;
-        }
-
-        return NimUserInfoCache.getInstance().getUserName(account);
+        return DisplayNameResolver.getInstance().resolve(tid, account);
     }
 
     public String getTeamNick(String tid, String account) {
@@ -490,21 +571,11 @@ public class TeamDataCache {
     }
 
     private void replaceTeamMemberList(String tid, List<TeamMember> members) {
-        if (members == null || members.isEmpty() || TextUtils.isEmpty(tid)) {
+        if (members == null || TextUtils.isEmpty(tid)) {
             return;
         }
 
-        Map<String, TeamMember> map = teamMemberCache.get(tid);
-        if (map == null) {
-            map = new ConcurrentHashMap<>();
-            teamMemberCache.put(tid, map);
-        } else {
-            map.clear();
-        }
-
-        for (TeamMember m : members) {
-            map.put(m.getAccount(), m);
-        }
+        memberStore.replace(tid, members);
     }
 
     private void addOrUpdateTeamMember(TeamMember member) {
@@ -512,13 +583,7 @@ public class TeamDataCache {
             return;
         }
 
-        Map<String, TeamMember> map = teamMemberCache.get(member.getTid());
-        if (map == null) {
-            map = new ConcurrentHashMap<>();
-            teamMemberCache.put(member.getTid(), map);
-        }
-
-        map.put(member.getAccount(), member);
+        memberStore.put(member);
     }
 
     private void addOrUpdateTeamMembers(List<TeamMember> members) {
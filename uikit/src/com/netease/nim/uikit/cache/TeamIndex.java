@@ -0,0 +1,165 @@
+package com.netease.nim.uikit.cache;
+
+import android.text.TextUtils;
+
+import com.netease.nim.uikit.contact.core.query.TextComparator;
+import com.netease.nimlib.sdk.team.constant.TeamTypeEnum;
+import com.netease.nimlib.sdk.team.model.Team;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 我加入的群的索引：按群名称排序键有序维护，按类型分组。
+ * 变更时二分插入/删除，查询返回不可变快照，快照在变更后第一次查询时生成一次。
+ */
+public class TeamIndex {
+
+    private static final class Entry {
+        final Team team;
+
+        final int[] key;
+
+        Entry(Team team) {
+            this.team = team;
+            this.key = TextComparator.getCollationKey(getSortName(team));
+        }
+    }
+
+    private static final class Snapshot {
+        final List<Team> all;
+
+        final List<Team> advanced;
+
+        final List<Team> normal;
+
+        Snapshot(List<Team> all, List<Team> advanced, List<Team> normal) {
+            this.all = Collections.unmodifiableList(all);
+            this.advanced = Collections.unmodifiableList(advanced);
+            this.normal = Collections.unmodifiableList(normal);
+        }
+    }
+
+    private static final Comparator<Entry> COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry lhs, Entry rhs) {
+            int compare = TextComparator.compare(lhs.key, rhs.key);
+            return compare != 0 ? compare : lhs.team.getId().compareTo(rhs.team.getId());
+        }
+    };
+
+    private final Map<String, Entry> entries = new HashMap<>(); // 只包含我加入的群
+
+    private final List<Entry> sorted = new ArrayList<>();
+
+    private volatile Snapshot snapshot; // 变更后置空
+
+    /**
+     * 添加或更新，不在群中(退群、被踢、解散)的群移出索引
+     */
+    synchronized void update(Team team) {
+        Entry old = entries.get(team.getId());
+        if (old != null) {
+            if (old.team == team) {
+                return;
+            }
+            removeSorted(old);
+            entries.remove(team.getId());
+        }
+
+        if (team.isMyTeam()) {
+            Entry entry = new Entry(team);
+            int index = Collections.binarySearch(sorted, entry, COMPARATOR);
+            sorted.add(index < 0 ? -index - 1 : index, entry);
+            entries.put(team.getId(), entry);
+        }
+
+        snapshot = null;
+    }
+
+    synchronized void retainAll(Collection<String> ids) {
+        Iterator<Map.Entry<String, Entry>> iter = entries.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<String, Entry> e = iter.next();
+            if (!ids.contains(e.getKey())) {
+                iter.remove();
+                removeSorted(e.getValue());
+            }
+        }
+
+        snapshot = null;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        sorted.clear();
+        snapshot = null;
+    }
+
+    /**
+     * 我加入的所有群，按名称排序
+     */
+    List<Team> getAll() {
+        return snapshot().all;
+    }
+
+    List<Team> getByType(TeamTypeEnum type) {
+        if (type == TeamTypeEnum.Advanced) {
+            return snapshot().advanced;
+        } else if (type == TeamTypeEnum.Normal) {
+            return snapshot().normal;
+        }
+
+        List<Team> teams = new ArrayList<>();
+        for (Team t : snapshot().all) {
+            if (t.getType() == type) {
+                teams.add(t);
+            }
+        }
+
+        return Collections.unmodifiableList(teams);
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s != null) {
+            return s;
+        }
+
+        synchronized (this) {
+            if (snapshot == null) {
+                List<Team> all = new ArrayList<>(sorted.size());
+                List<Team> advanced = new ArrayList<>();
+                List<Team> normal = new ArrayList<>();
+                for (Entry e : sorted) {
+                    all.add(e.team);
+                    if (e.team.getType() == TeamTypeEnum.Advanced) {
+                        advanced.add(e.team);
+                    } else if (e.team.getType() == TeamTypeEnum.Normal) {
+                        normal.add(e.team);
+                    }
+                }
+                snapshot = new Snapshot(all, advanced, normal);
+            }
+
+            return snapshot;
+        }
+    }
+
+    private void removeSorted(Entry entry) {
+        int index = Collections.binarySearch(sorted, entry, COMPARATOR);
+        if (index >= 0) {
+            sorted.remove(index);
+        }
+    }
+
+    private static String getSortName(Team team) {
+        return TextUtils.isEmpty(team.getName()) ? team.getId() : team.getName();
+    }
+}
@@ -0,0 +1,125 @@
+package com.netease.nim.uikit.cache;
+
+import com.netease.nimlib.sdk.team.model.TeamMember;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 有界的群成员存储：按群LRU淘汰，权重为群成员数。
+ * 整群加载过的群标记为完整(complete)，完整的群中查不到的成员即不在群中，无需再查询。
+ * 最近访问的群即使超过上限也会保留。
+ */
+public class TeamMemberStore {
+
+    private static class Entry {
+        final Map<String, TeamMember> members = new LinkedHashMap<>();
+
+        boolean complete;
+    }
+
+    private final LinkedHashMap<String, Entry> teams = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    private long maxWeight;
+
+    private long evictions;
+
+    TeamMemberStore(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    synchronized TeamMember get(String tid, String account) {
+        Entry entry = teams.get(tid);
+        return entry != null ? entry.members.get(account) : null;
+    }
+
+    /**
+     * 群成员是否已整群加载
+     */
+    synchronized boolean isComplete(String tid) {
+        Entry entry = teams.get(tid);
+        return entry != null && entry.complete;
+    }
+
+    /**
+     * 获取缓存的群成员，未缓存返回null
+     */
+    synchronized List<TeamMember> getMembers(String tid) {
+        Entry entry = teams.get(tid);
+        return entry != null ? new ArrayList<>(entry.members.values()) : null;
+    }
+
+    /**
+     * 整群替换，标记为完整
+     */
+    synchronized void replace(String tid, List<TeamMember> members) {
+        Entry entry = teams.get(tid);
+        if (entry == null) {
+            entry = new Entry();
+            teams.put(tid, entry);
+        } else {
+            weight -= entry.members.size();
+            entry.members.clear();
+        }
+
+        for (TeamMember m : members) {
+            entry.members.put(m.getAccount(), m);
+        }
+        entry.complete = true;
+        weight += entry.members.size();
+
+        trim();
+    }
+
+    synchronized void put(TeamMember member) {
+        Entry entry = teams.get(member.getTid());
+        if (entry == null) {
+            entry = new Entry();
+            teams.put(member.getTid(), entry);
+        }
+
+        if (entry.members.put(member.getAccount(), member) == null) {
+            weight++;
+            trim();
+        }
+    }
+
+    synchronized void clear() {
+        teams.clear();
+        weight = 0;
+    }
+
+    synchronized void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        trim();
+    }
+
+    synchronized int size() {
+        return teams.size();
+    }
+
+    synchronized long getWeight() {
+        return weight;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private void trim() {
+        // 从最久未访问的群开始淘汰，保留最近访问的群
+        Iterator<Map.Entry<String, Entry>> iter = teams.entrySet().iterator();
+        while (weight > maxWeight && teams.size() > 1 && iter.hasNext()) {
+            Map.Entry<String, Entry> e = iter.next();
+            iter.remove();
+
+            weight -= e.getValue().members.size();
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.netease.nim.uikit.cache;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.netease.nim.uikit.UIKitLogTag;
+import com.netease.nim.uikit.common.util.log.LogUtil;
+import com.netease.nimlib.sdk.NIMClient;
+import com.netease.nimlib.sdk.RequestCallback;
+import com.netease.nimlib.sdk.ResponseCode;
+import com.netease.nimlib.sdk.uinfo.UserService;
+import com.netease.nimlib.sdk.uinfo.model.NimUserInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 从服务器获取用户资料（single-flight）：
+ * 同一账号同时只有一个请求，后来的回调挂到进行中的请求上；
+ * 一个短时间窗口内的所有未命中账号合并为一次批量fetchUserInfo，每批不超过上限。
+ */
+public class UserInfoBatchLoader {
+
+    /**
+     * 获取用户资料的服务，默认为SDK的 {@link UserService#fetchUserInfo(List)}
+     */
+    public interface Fetcher {
+        void fetch(List<String> accounts, RequestCallback<List<NimUserInfo>> callback);
+    }
+
+    public static final Fetcher SDK_FETCHER = new Fetcher() {
+        @Override
+        public void fetch(List<String> accounts, RequestCallback<List<NimUserInfo>> callback) {
+            NIMClient.getService(UserService.class).fetchUserInfo(accounts).setCallback(callback);
+        }
+    };
+
+    /**
+     * 等待中的请求被 {@link #clear()} 取消（通常是注销）时回调的错误码
+     */
+    public static final int CODE_CANCELED = ResponseCode.RES_OFFLINE;
+
+    private static final long BATCH_WINDOW = 50; // 合并窗口(ms)
+
+    private static final int MAX_BATCH_SIZE = 150; // 单次fetchUserInfo账号上限
+
+    private final Fetcher fetcher;
+
+    private final Handler handler;
+
+    private final LinkedHashMap<String, List<RequestCallback<NimUserInfo>>> pending = new LinkedHashMap<>(); // 等待合并
+
+    private final Map<String, List<RequestCallback<NimUserInfo>>> inflight = new HashMap<>(); // 请求中
+
+    private boolean flushScheduled;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public UserInfoBatchLoader() {
+        this(SDK_FETCHER, new Handler(Looper.getMainLooper()));
+    }
+
+    public UserInfoBatchLoader(Fetcher fetcher, Handler handler) {
+        this.fetcher = fetcher;
+        this.handler = handler;
+    }
+
+    /**
+     * 获取单个用户资料
+     */
+    public void load(String account, RequestCallback<NimUserInfo> callback) {
+        boolean flushNow;
+        synchronized (this) {
+            // 已经在请求中，挂上回调
+            List<RequestCallback<NimUserInfo>> cbs = inflight.get(account);
+            if (cbs == null) {
+                cbs = pending.get(account);
+            }
+
+            if (cbs != null) {
+                if (callback != null) {
+                    cbs.add(callback);
+                }
+                return;
+            }
+
+            cbs = new ArrayList<>(1);
+            if (callback != null) {
+                cbs.add(callback);
+            }
+            pending.put(account, cbs);
+
+            flushNow = pending.size() >= MAX_BATCH_SIZE;
+            if (!flushNow && !flushScheduled) {
+                flushScheduled = true;
+                handler.postDelayed(flushRunnable, BATCH_WINDOW);
+            }
+        }
+
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    /**
+     * 获取批量用户资料，全部账号返回后回调
+     */
+    public void load(List<String> accounts, final RequestCallback<List<NimUserInfo>> callback) {
+        if (accounts == null || accounts.isEmpty()) {
+            if (callback != null) {
+                callback.onSuccess(new ArrayList<NimUserInfo>(0));
+            }
+            return;
+        }
+
+        final Aggregator aggregator = callback != null ? new Aggregator(accounts.size(), callback) : null;
+        for (String account : accounts) {
+            load(account, aggregator);
+        }
+    }
+
+    /**
+     * 清空等待中的请求，其回调以 {@link #CODE_CANCELED} 失败返回；进行中的请求仍按结果回调
+     */
+    public void clear() {
+        List<List<RequestCallback<NimUserInfo>>> canceled;
+        synchronized (this) {
+            canceled = new ArrayList<>(pending.values());
+            pending.clear();
+            handler.removeCallbacks(flushRunnable);
+            flushScheduled = false;
+        }
+
+        // 在锁外回调，回调中可能再次发起请求
+        for (List<RequestCallback<NimUserInfo>> cbs : canceled) {
+            for (RequestCallback<NimUserInfo> cb : cbs) {
+                cb.onFailed(CODE_CANCELED);
+            }
+        }
+    }
+
+    private void flush() {
+        while (true) {
+            final List<String> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    flushScheduled = false;
+                    handler.removeCallbacks(flushRunnable);
+                    return;
+                }
+
+                batch = new ArrayList<>(Math.min(pending.size(), MAX_BATCH_SIZE));
+                Iterator<Map.Entry<String, List<RequestCallback<NimUserInfo>>>> iter = pending.entrySet().iterator();
+                while (iter.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+                    Map.Entry<String, List<RequestCallback<NimUserInfo>>> e = iter.next();
+                    iter.remove();
+
+                    batch.add(e.getKey());
+                    inflight.put(e.getKey(), e.getValue());
+                }
+            }
+
+            LogUtil.i(UIKitLogTag.USER_CACHE, "fetch userInfo batch, size=" + batch.size());
+
+            fetcher.fetch(batch, new RequestCallback<List<NimUserInfo>>() {
+                @Override
+                public void onSuccess(List<NimUserInfo> users) {
+                    Map<String, NimUserInfo> map = new HashMap<>();
+                    if (users != null) {
+                        for (NimUserInfo user : users) {
+                            map.put(user.getAccount(), user);
+                        }
+                    }
+
+                    // 这里不需要更新缓存，由监听用户资料变更（添加）来更新缓存
+                    for (Map.Entry<String, List<RequestCallback<NimUserInfo>>> e : complete(batch).entrySet()) {
+                        for (RequestCallback<NimUserInfo> cb : e.getValue()) {
+                            cb.onSuccess(map.get(e.getKey()));
+                        }
+                    }
+                }
+
+                @Override
+                public void onFailed(int code) {
+                    for (List<RequestCallback<NimUserInfo>> cbs : complete(batch).values()) {
+                        for (RequestCallback<NimUserInfo> cb : cbs) {
+                            cb.onFailed(code);
+                        }
+                    }
+                }
+
+                @Override
+                public void onException(Throwable exception) {
+                    for (List<RequestCallback<NimUserInfo>> cbs : complete(batch).values()) {
+                        for (RequestCallback<NimUserInfo> cb : cbs) {
+                            cb.onException(exception);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private synchronized Map<String, List<RequestCallback<NimUserInfo>>> complete(List<String> batch) {
+        Map<String, List<RequestCallback<NimUserInfo>>> callbacks = new HashMap<>(batch.size());
+        for (String account : batch) {
+            List<RequestCallback<NimUserInfo>> cbs = inflight.remove(account);
+            if (cbs != null && !cbs.isEmpty()) {
+                callbacks.put(account, cbs);
+            }
+        }
+
+        return callbacks;
+    }
+
+    /**
+     * 汇总批量请求中各个账号的结果
+     */
+    private static class Aggregator implements RequestCallback<NimUserInfo> {
+        private final RequestCallback<List<NimUserInfo>> callback;
+
+        private final List<NimUserInfo> users;
+
+        private int remain;
+
+        private int code = ResponseCode.RES_SUCCESS;
+
+        private Throwable exception;
+
+        Aggregator(int count, RequestCallback<List<NimUserInfo>> callback) {
+            this.callback = callback;
+            this.users = new ArrayList<>(count);
+            this.remain = count;
+        }
+
+        @Override
+        public void onSuccess(NimUserInfo user) {
+            synchronized (this) {
+                if (user != null) {
+                    users.add(user);
+                }
+            }
+
+            done();
+        }
+
+        @Override
+        public void onFailed(int code) {
+            synchronized (this) {
+                this.code = code;
+            }
+
+            done();
+        }
+
+        @Override
+        public void onException(Throwable exception) {
+            synchronized (this) {
+                this.exception = exception;
+            }
+
+            done();
+        }
+
+        private void done() {
+            synchronized (this) {
+                if (--remain > 0) {
+                    return;
+                }
+            }
+
+            if (exception != null) {
+                callback.onException(exception);
+            } else if (code != ResponseCode.RES_SUCCESS) {
+                callback.onFailed(code);
+            } else {
+                callback.onSuccess(users);
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.netease.nim.uikit.cache;
+
+import com.netease.nimlib.sdk.uinfo.model.NimUserInfo;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界的用户资料存储，分段LRU(segmented LRU)：
+ * 新数据进入试用段(probation)，再次命中后晋升到保护段(protected)，保护段超限时降级回试用段，淘汰只发生在试用段尾部。
+ * 固定(pinned)的用户（好友、自己）不计入容量，不会被淘汰。
+ * 容量按估算的内存权重(字节)计算。
+ */
+public class UserInfoStore {
+
+    public interface Pinning {
+        boolean isPinned(String account);
+    }
+
+    /**
+     * 统计快照
+     */
+    public static class Stats {
+        public long hits;
+
+        public long misses;
+
+        public long evictions;
+
+        public int pinned;
+
+        public int size;
+
+        public long weight;
+
+        public long maxWeight;
+
+        public float hitRate() {
+            long total = hits + misses;
+            return total > 0 ? (float) hits / total : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "hits " + hits + " misses " + misses + " hitRate " + hitRate() + " evictions " + evictions
+                    + " pinned " + pinned + " size " + size + " weight " + weight + "/" + maxWeight;
+        }
+    }
+
+    private static final int PROTECTED_PERCENT = 80;
+
+    private static final int ENTRY_OVERHEAD = 96; // 对象头、Map节点等
+
+    private final Pinning pinning;
+
+    private final ConcurrentHashMap<String, NimUserInfo> pinned = new ConcurrentHashMap<>();
+
+    private final LinkedHashMap<String, NimUserInfo> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<String, NimUserInfo> protect = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long probationWeight;
+
+    private long protectWeight;
+
+    private long maxWeight;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    UserInfoStore(long maxWeight, Pinning pinning) {
+        this.maxWeight = maxWeight;
+        this.pinning = pinning;
+    }
+
+    NimUserInfo get(String account) {
+        NimUserInfo user = pinned.get(account);
+        if (user == null) {
+            user = getSegmented(account);
+        }
+
+        if (user != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+
+        return user;
+    }
+
+    boolean contains(String account) {
+        if (pinned.containsKey(account)) {
+            return true;
+        }
+
+        synchronized (this) {
+            return probation.containsKey(account) || protect.containsKey(account);
+        }
+    }
+
+    void put(NimUserInfo user) {
+        String account = user.getAccount();
+        if (pinning.isPinned(account)) {
+            pinned.put(account, user);
+            synchronized (this) {
+                removeSegmented(account);
+            }
+            return;
+        }
+
+        pinned.remove(account);
+        List<Map.Entry<String, NimUserInfo>> evicted;
+        synchronized (this) {
+            NimUserInfo old = protect.get(account);
+            if (old != null) {
+                // 更新保留所在分段
+                protect.put(account, user);
+                protectWeight += weigh(user) - weigh(old);
+            } else {
+                old = probation.put(account, user);
+                probationWeight += weigh(user) - (old != null ? weigh(old) : 0);
+            }
+
+            evicted = balance();
+        }
+
+        onEvicted(evicted);
+    }
+
+    /**
+     * 重新检查固定状态，如好友关系变化后
+     */
+    void repin(Iterable<String> accounts) {
+        for (String account : accounts) {
+            boolean pin = pinning.isPinned(account);
+            if (pin) {
+                NimUserInfo user;
+                synchronized (this) {
+                    user = removeSegmented(account);
+                }
+                if (user != null) {
+                    pinned.put(account, user);
+                }
+            } else {
+                NimUserInfo user = pinned.remove(account);
+                if (user != null) {
+                    put(user);
+                }
+            }
+        }
+    }
+
+    List<String> getPinnedAccounts() {
+        return new ArrayList<>(pinned.keySet());
+    }
+
+    List<NimUserInfo> values() {
+        List<NimUserInfo> users = new ArrayList<>(pinned.values());
+        synchronized (this) {
+            users.addAll(protect.values());
+            users.addAll(probation.values());
+        }
+
+        return users;
+    }
+
+    void clear() {
+        pinned.clear();
+        synchronized (this) {
+            probation.clear();
+            protect.clear();
+            probationWeight = 0;
+            protectWeight = 0;
+        }
+    }
+
+    void setMaxWeight(long maxWeight) {
+        List<Map.Entry<String, NimUserInfo>> evicted;
+        synchronized (this) {
+            this.maxWeight = maxWeight;
+            evicted = balance();
+        }
+
+        onEvicted(evicted);
+    }
+
+    int size() {
+        synchronized (this) {
+            return pinned.size() + probation.size() + protect.size();
+        }
+    }
+
+    Stats getStats() {
+        Stats stats = new Stats();
+        stats.hits = hits.get();
+        stats.misses = misses.get();
+        stats.evictions = evictions.get();
+        stats.pinned = pinned.size();
+        synchronized (this) {
+            stats.size = probation.size() + protect.size();
+            stats.weight = probationWeight + protectWeight;
+            stats.maxWeight = maxWeight;
+        }
+
+        return stats;
+    }
+
+    private NimUserInfo getSegmented(String account) {
+        NimUserInfo user;
+        List<Map.Entry<String, NimUserInfo>> evicted = null;
+        synchronized (this) {
+            user = protect.get(account);
+            if (user != null) {
+                return user;
+            }
+
+            user = probation.remove(account);
+            if (user != null) {
+                // 再次命中，晋升
+                int w = weigh(user);
+                probationWeight -= w;
+                protect.put(account, user);
+                protectWeight += w;
+
+                evicted = balance();
+            }
+        }
+
+        onEvicted(evicted);
+
+        return user;
+    }
+
+    private NimUserInfo removeSegmented(String account) {
+        NimUserInfo user = protect.remove(account);
+        if (user != null) {
+            protectWeight -= weigh(user);
+            return user;
+        }
+
+        user = probation.remove(account);
+        if (user != null) {
+            probationWeight -= weigh(user);
+        }
+
+        return user;
+    }
+
+    /**
+     * @return 被淘汰的数据，null表示没有
+     */
+    private List<Map.Entry<String, NimUserInfo>> balance() {
+        // 保护段超限，降级到试用段
+        long maxProtect = maxWeight * PROTECTED_PERCENT / 100;
+        Iterator<Map.Entry<String, NimUserInfo>> iter = protect.entrySet().iterator();
+        while (protectWeight > maxProtect && iter.hasNext()) {
+            Map.Entry<String, NimUserInfo> e = iter.next();
+            iter.remove();
+
+            int w = weigh(e.getValue());
+            protectWeight -= w;
+            probation.put(e.getKey(), e.getValue());
+            probationWeight += w;
+        }
+
+        // 总量超限，从试用段尾部淘汰
+        List<Map.Entry<String, NimUserInfo>> evicted = null;
+        iter = probation.entrySet().iterator();
+        while (probationWeight + protectWeight > maxWeight && iter.hasNext()) {
+            Map.Entry<String, NimUserInfo> e = iter.next();
+            iter.remove();
+
+            probationWeight -= weigh(e.getValue());
+            if (evicted == null) {
+                evicted = new ArrayList<>();
+            }
+            evicted.add(e);
+        }
+
+        return evicted;
+    }
+
+    /**
+     * 在锁外检查被淘汰的数据是否应当固定（查询好友关系），不在持有存储锁时访问其他缓存
+     */
+    private void onEvicted(List<Map.Entry<String, NimUserInfo>> evicted) {
+        if (evicted == null) {
+            return;
+        }
+
+        for (Map.Entry<String, NimUserInfo> e : evicted) {
+            if (pinning.isPinned(e.getKey())) {
+                // 成为好友后尚未重新固定，期间已写入的新数据优先
+                pinned.putIfAbsent(e.getKey(), e.getValue());
+            } else {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static int weigh(NimUserInfo user) {
+        return ENTRY_OVERHEAD + 2 * (length(user.getAccount()) + length(user.getName()) + length(user.getAvatar())
+                + length(user.getSignature()) + length(user.getEmail()) + length(user.getMobile())
+                + length(user.getBirthday()) + length(user.getExtension()));
+    }
+
+    private static int length(String s) {
+        return s != null ? s.length() : 0;
+    }
+}
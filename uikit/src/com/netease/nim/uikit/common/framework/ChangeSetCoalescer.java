@@ -0,0 +1,99 @@
+package com.netease.nim.uikit.common.framework;
+
+import android.os.Handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 变更集合并：一个时间窗口（默认一帧）内多次提交的变更key去重合并，窗口结束时在Handler线程回调一次。
+ * 回调收到的key按首次提交的顺序排列。
+ */
+public final class ChangeSetCoalescer<K> {
+
+    public static final long FRAME_INTERVAL = 16; // ms
+
+    public interface Callback<K> {
+        void onChanged(List<K> changes);
+    }
+
+    private final Handler handler;
+
+    private final long window;
+
+    private final Callback<K> callback;
+
+    private LinkedHashSet<K> pending = new LinkedHashSet<>();
+
+    private boolean scheduled;
+
+    private long submitted; // 提交次数
+
+    private long delivered; // 回调次数
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public ChangeSetCoalescer(Handler handler, Callback<K> callback) {
+        this(handler, FRAME_INTERVAL, callback);
+    }
+
+    public ChangeSetCoalescer(Handler handler, long window, Callback<K> callback) {
+        this.handler = handler;
+        this.window = window;
+        this.callback = callback;
+    }
+
+    public synchronized void submit(Collection<K> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return;
+        }
+
+        submitted++;
+        pending.addAll(changes);
+        if (!scheduled) {
+            scheduled = true;
+            handler.postDelayed(flushRunnable, window);
+        }
+    }
+
+    /**
+     * 立即回调等待中的变更（需在Handler线程调用）
+     */
+    public void flush() {
+        List<K> changes;
+        synchronized (this) {
+            scheduled = false;
+            handler.removeCallbacks(flushRunnable);
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            changes = new ArrayList<>(pending);
+            pending = new LinkedHashSet<>();
+            delivered++;
+        }
+
+        callback.onChanged(changes);
+    }
+
+    public synchronized void clear() {
+        pending.clear();
+        scheduled = false;
+        handler.removeCallbacks(flushRunnable);
+    }
+
+    public synchronized long getSubmittedCount() {
+        return submitted;
+    }
+
+    public synchronized long getDeliveredCount() {
+        return delivered;
+    }
+}
@@ -0,0 +1,83 @@
+package com.netease.nim.uikit.common.framework;
+
+import java.util.Arrays;
+
+/**
+ * 观察者列表（写时复制）：
+ * 注册/注销复制数组，通知时遍历当时的快照，通知过程中注册/注销观察者不影响本次遍历。
+ * 同一观察者只注册一次，按注册顺序通知。
+ */
+public final class ObserverList<T> {
+
+    public interface Action<T> {
+        void run(T observer);
+    }
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private volatile Object[] observers = EMPTY;
+
+    public synchronized boolean register(T observer) {
+        if (observer == null || indexOf(observer) >= 0) {
+            return false;
+        }
+
+        Object[] copy = Arrays.copyOf(observers, observers.length + 1);
+        copy[observers.length] = observer;
+        observers = copy;
+
+        return true;
+    }
+
+    public synchronized boolean unregister(T observer) {
+        int index = indexOf(observer);
+        if (index < 0) {
+            return false;
+        }
+
+        Object[] copy = new Object[observers.length - 1];
+        System.arraycopy(observers, 0, copy, 0, index);
+        System.arraycopy(observers, index + 1, copy, index, observers.length - index - 1);
+        observers = copy;
+
+        return true;
+    }
+
+    public void register(T observer, boolean register) {
+        if (register) {
+            register(observer);
+        } else {
+            unregister(observer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void dispatch(Action<T> action) {
+        for (Object o : observers) {
+            action.run((T) o);
+        }
+    }
+
+    public boolean isEmpty() {
+        return observers.length == 0;
+    }
+
+    public int size() {
+        return observers.length;
+    }
+
+    public synchronized void clear() {
+        observers = EMPTY;
+    }
+
+    private int indexOf(Object observer) {
+        Object[] array = observers;
+        for (int i = 0; i < array.length; i++) {
+            if (array[i].equals(observer)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,144 @@
+package com.netease.nim.uikit.common.framework;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 解析结果缓存：以消息uuid + 内容hash为key，LRU淘汰，同一条消息的相同内容只解析一次。
+ * 命中时还会比较内容本身，hash冲突不会返回错误的结果；解析失败不缓存。
+ * 缓存的解析结果被多处共享，使用方不能修改。
+ * 不依赖Android，解析器可替换，便于在JVM上对比不同解析器的性能。
+ */
+public final class ParseCache<V> {
+
+    public interface Parser<V> {
+        /**
+         * @return 解析结果，无法解析返回null
+         */
+        V parse(String content) throws Exception;
+    }
+
+    private static final class Key {
+        final String uuid;
+
+        final int hash;
+
+        Key(String uuid, int hash) {
+            this.uuid = uuid == null ? "" : uuid;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return hash == key.hash && uuid.equals(key.uuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * uuid.hashCode() + hash;
+        }
+    }
+
+    private static final class Result<V> {
+        final String content;
+
+        final V value;
+
+        Result(String content, V value) {
+            this.content = content;
+            this.value = value;
+        }
+    }
+
+    private final LinkedHashMap<Key, Result<V>> entries;
+
+    private volatile Parser<V> parser;
+
+    private long hits;
+
+    private long misses;
+
+    public ParseCache(final int maxSize, Parser<V> parser) {
+        this.parser = parser;
+        this.entries = new LinkedHashMap<Key, Result<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Result<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取解析结果，未缓存则解析并缓存
+     *
+     * @param uuid    消息uuid，没有时传null（仅按内容缓存）
+     * @param content 待解析的内容
+     * @return 解析结果，内容为空或解析失败返回null
+     */
+    public V get(String uuid, String content) {
+        if (content == null) {
+            return null;
+        }
+
+        Key key = new Key(uuid, content.hashCode());
+        synchronized (this) {
+            Result<V> entry = entries.get(key);
+            if (entry != null && content.equals(entry.content)) {
+                hits++;
+                return entry.value;
+            }
+            misses++;
+        }
+
+        // 在锁外解析，并发解析同一内容时结果相同，后放入的覆盖先放入的
+        Parser<V> p = parser;
+        V value;
+        try {
+            value = p.parse(content);
+        } catch (Exception e) {
+            return null;
+        }
+
+        if (value != null) {
+            synchronized (this) {
+                if (p == parser) {
+                    entries.put(key, new Result<>(content, value));
+                }
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * 替换解析器，已缓存的结果清空
+     */
+    public synchronized void setParser(Parser<V> parser) {
+        this.parser = parser;
+        entries.clear();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+}
@@ -464,6 +464,7 @@ public abstract class BaseFetchLoadAdapter<T, K extends BaseViewHolder> extends
      */
     public void setNewData(List<T> data) {
         this.mData = data == null ? new ArrayList<T>() : data;
+        onDataReset();
         if (mRequestLoadMoreListener != null) {
             mNextLoadEnable = true;
             mLoadMoreEnable = true;
@@ -486,6 +487,7 @@ public abstract class BaseFetchLoadAdapter<T, K extends BaseViewHolder> extends
      */
     public void clearData() {
         this.mData.clear();
+        onDataReset();
         if (mRequestLoadMoreListener != null) {
             mNextLoadEnable = true;
             mLoading = false;
@@ -509,6 +511,7 @@ public abstract class BaseFetchLoadAdapter<T, K extends BaseViewHolder> extends
      */
     public void add(int position, T item) {
         mData.add(position, item);
+        onDataInserted(position, 1);
         notifyItemInserted(position + getFetchMoreViewCount());
     }
 
@@ -520,6 +523,7 @@ public abstract class BaseFetchLoadAdapter<T, K extends BaseViewHolder> extends
     public void addData(int position, List<T> data) {
         if (0 <= position && position < mData.size()) {
             mData.addAll(position, data);
+            onDataInserted(position, data.size());
             notifyItemRangeInserted(getFetchMoreViewCount() + position, data.size());
         } else {
             throw new ArrayIndexOutOfBoundsException("inserted position most greater than 0 and less than data size");
@@ -534,6 +538,7 @@ public abstract class BaseFetchLoadAdapter<T, K extends BaseViewHolder> extends
     public void remove(int position) {
         final T item = mData.get(position);
         mData.remove(position);
+        onDataRemoved(position, item);
         notifyItemRemoved(position + getHeaderLayoutCount());
         onRemove(item);
     }
@@ -542,6 +547,24 @@ public abstract class BaseFetchLoadAdapter<T, K extends BaseViewHolder> extends
 
     }
 
+    /**
+     * 数据源变化回调，供子类维护索引
+     *
+     * @param position 插入位置
+     * @param count    插入数量
+     */
+    protected void onDataInserted(int position, int count) {
+
+    }
+
+    protected void onDataRemoved(int position, T item) {
+
+    }
+
+    protected void onDataReset() {
+
+    }
+
     /**
      * add new data to head location
      */
@@ -551,9 +574,39 @@ public abstract class BaseFetchLoadAdapter<T, K extends BaseViewHolder> extends
         }
 
         mData.addAll(0, data);
+        onDataInserted(0, data.size());
         notifyItemRangeInserted(getFetchMoreViewCount(), data.size()); // add到FetchMoreView之下，保持FetchMoreView在顶部
     }
 
+    /**
+     * remove data from head location, removed data can be fetched again
+     *
+     * @param count
+     */
+    public void removeFrontData(int count) {
+        count = Math.min(count, mData.size());
+        if (count <= 0) {
+            return;
+        }
+
+        final int fetchMoreViewCount = getFetchMoreViewCount();
+        mData.subList(0, count).clear();
+        onDataReset();
+        notifyItemRangeRemoved(fetchMoreViewCount, count);
+
+        // 顶部已经没有更多数据时，移除后需要重新开启顶部加载
+        if (mRequestFetchMoreListener != null && mFetchMoreEnable && !mNextFetchEnable) {
+            mNextFetchEnable = true;
+            mFetching = false;
+            mFetchMoreView.setLoadMoreStatus(LoadMoreView.STATUS_DEFAULT);
+            if (fetchMoreViewCount == 0) {
+                notifyItemInserted(0);
+            } else {
+                notifyItemChanged(0);
+            }
+        }
+    }
+
     /**
      * additional data;
      *
@@ -565,6 +618,7 @@ public abstract class BaseFetchLoadAdapter<T, K extends BaseViewHolder> extends
         }
 
         this.mData.addAll(newData);
+        onDataInserted(mData.size() - newData.size(), newData.size());
         notifyItemRangeInserted(mData.size() - newData.size() + getFetchMoreViewCount(), newData.size());
     }
 
@@ -606,6 +660,10 @@ public abstract class BaseFetchLoadAdapter<T, K extends BaseViewHolder> extends
         notifyItemChanged(getHeaderLayoutCount() + dataIndex);
     }
 
+    public void notifyDataItemRangeChanged(int dataIndex, int count) {
+        notifyItemRangeChanged(getHeaderLayoutCount() + dataIndex, count);
+    }
+
     /**
      * *********************************** ViewHolder/ViewType ***********************************
      */
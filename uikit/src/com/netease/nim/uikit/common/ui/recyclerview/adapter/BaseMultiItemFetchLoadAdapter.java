@@ -7,9 +7,10 @@ import android.view.ViewGroup;
 
 import com.netease.nim.uikit.common.ui.recyclerview.holder.BaseViewHolder;
 import com.netease.nim.uikit.common.ui.recyclerview.holder.RecyclerViewHolder;
+import com.netease.nim.uikit.common.ui.recyclerview.holder.RecyclerViewHolderFactory;
 
-import java.lang.reflect.Constructor;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,14 +22,28 @@ public abstract class BaseMultiItemFetchLoadAdapter<T, K extends BaseViewHolder>
     private SparseArray<Integer> layouts;
 
     /**
-     * viewType->view holder class
+     * viewType->view holder factory
      */
-    private SparseArray<Class<? extends RecyclerViewHolder>> holderClasses;
+    private SparseArray<RecyclerViewHolderFactory> holderFactories;
 
     /**
-     * viewType->view holder instance
+     * item key->当前绑定的view holder，只包含已绑定到行View的item
      */
-    private Map<Integer, Map<String, RecyclerViewHolder>> multiTypeViewHolders;
+    private Map<String, RecyclerViewHolder> boundViewHolders = new HashMap<>();
+
+    private Map<RecyclerViewHolder, String> boundKeys = new IdentityHashMap<>();
+
+    /**
+     * item key->存储值，位置 = 存储值 + indexBase。
+     * 头部插入只移动基准，尾部插入/头尾删除增量维护，其他变化标记失效，下次查询时重建
+     */
+    private Map<String, Integer> keyIndex = new HashMap<>();
+
+    private int indexBase;
+
+    private int indexedSize; // 索引对应的数据量，与数据源不一致说明数据源被直接修改过
+
+    private boolean indexValid;
 
     /**
      * get view type from data item
@@ -64,17 +79,11 @@ public abstract class BaseMultiItemFetchLoadAdapter<T, K extends BaseViewHolder>
         }
         layouts.put(type, layoutResId);
 
-        // view holder class
-        if (holderClasses == null) {
-            holderClasses = new SparseArray<>();
-        }
-        holderClasses.put(type, viewHolderClass);
-
-        // view holder
-        if (multiTypeViewHolders == null) {
-            multiTypeViewHolders = new HashMap<>();
+        // view holder factory
+        if (holderFactories == null) {
+            holderFactories = new SparseArray<>();
         }
-        multiTypeViewHolders.put(type, new HashMap<String, RecyclerViewHolder>());
+        holderFactories.put(type, new RecyclerViewHolderFactory(viewHolderClass));
     }
 
     @Override
@@ -84,7 +93,10 @@ public abstract class BaseMultiItemFetchLoadAdapter<T, K extends BaseViewHolder>
 
     @Override
     protected K onCreateDefViewHolder(ViewGroup parent, int viewType) {
-        return createBaseViewHolder(parent, getLayoutId(viewType));
+        K baseHolder = createBaseViewHolder(parent, getLayoutId(viewType));
+        // 每一行View一个RecyclerViewHolder，随行View由RecyclerView回收复用，数量不随item增长
+        baseHolder.setItemHolder(holderFactories.get(viewType).create(this));
+        return baseHolder;
     }
 
     @Override
@@ -92,22 +104,15 @@ public abstract class BaseMultiItemFetchLoadAdapter<T, K extends BaseViewHolder>
         final String key = getItemKey(item);
         final int viewType = baseHolder.getItemViewType();
 
-        RecyclerViewHolder h = multiTypeViewHolders.get(viewType).get(key);
+        RecyclerViewHolder h = baseHolder.getItemHolder();
         if (h == null) {
-            // build
-            try {
-                Class<? extends RecyclerViewHolder> cls = holderClasses.get(viewType);
-                Constructor c = cls.getDeclaredConstructors()[0]; // 第一个显式的构造函数
-                c.setAccessible(true);
-                h = (RecyclerViewHolder) c.newInstance(new Object[]{this});
-                multiTypeViewHolders.get(viewType).put(key, h);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            h = holderFactories.get(viewType).create(this);
+            baseHolder.setItemHolder(h);
         }
 
         // convert
         if (h != null) {
+            bindViewHolder(key, h);
             h.convert(baseHolder, item, position, isScrolling);
         }
     }
@@ -117,16 +122,145 @@ public abstract class BaseMultiItemFetchLoadAdapter<T, K extends BaseViewHolder>
         super.onRemove(item);
 
         // 移除holder
-        multiTypeViewHolders.get(getViewType(item)).remove(getItemKey(item));
+        RecyclerViewHolder h = boundViewHolders.remove(getItemKey(item));
+        if (h != null) {
+            boundKeys.remove(h);
+        }
+    }
+
+    private void bindViewHolder(String key, RecyclerViewHolder h) {
+        String oldKey = boundKeys.put(h, key);
+        if (oldKey != null && !oldKey.equals(key) && boundViewHolders.get(oldKey) == h) {
+            boundViewHolders.remove(oldKey);
+        }
+
+        RecyclerViewHolder old = boundViewHolders.put(key, h);
+        if (old != null && old != h) {
+            boundKeys.remove(old);
+        }
+    }
+
+    /**
+     * 根据item key查找数据位置
+     *
+     * @param key item key，见 {@link #getItemKey(Object)}
+     * @return 数据位置，不存在返回-1
+     */
+    public int getItemIndex(String key) {
+        if (key == null) {
+            return -1;
+        }
+
+        if (!indexValid || indexedSize != mData.size()) {
+            rebuildIndex();
+        }
+
+        int index = lookupIndex(key);
+        if (index == INDEX_STALE) {
+            // 数据源被直接重排过
+            rebuildIndex();
+            index = lookupIndex(key);
+        }
+
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * 直接修改数据源（如排序）后调用
+     */
+    public void invalidateIndex() {
+        indexValid = false;
+    }
+
+    @Override
+    protected void onDataInserted(int position, int count) {
+        super.onDataInserted(position, count);
+
+        if (!indexValid || indexedSize != mData.size() - count) {
+            indexValid = false;
+            return;
+        }
+
+        if (position == 0) {
+            indexBase += count;
+            for (int i = 0; i < count; i++) {
+                keyIndex.put(getItemKey(mData.get(i)), i - indexBase);
+            }
+        } else if (position + count == mData.size()) {
+            for (int i = position; i < mData.size(); i++) {
+                keyIndex.put(getItemKey(mData.get(i)), i - indexBase);
+            }
+        } else {
+            indexValid = false;
+        }
+
+        indexedSize = mData.size();
+    }
+
+    @Override
+    protected void onDataRemoved(int position, T item) {
+        super.onDataRemoved(position, item);
+
+        if (!indexValid || indexedSize != mData.size() + 1) {
+            indexValid = false;
+            return;
+        }
+
+        keyIndex.remove(getItemKey(item));
+        if (position == 0) {
+            indexBase--;
+        } else if (position != mData.size()) {
+            indexValid = false; // 中间删除，后面的位置都要移动
+        }
+
+        indexedSize = mData.size();
+    }
+
+    @Override
+    protected void onDataReset() {
+        super.onDataReset();
+
+        indexValid = false;
+    }
+
+    private static final int INDEX_STALE = -2;
+
+    private int lookupIndex(String key) {
+        Integer stored = keyIndex.get(key);
+        if (stored == null) {
+            return -1;
+        }
+
+        int index = stored + indexBase;
+        if (index >= 0 && index < mData.size() && key.equals(getItemKey(mData.get(index)))) {
+            return index;
+        }
+
+        return INDEX_STALE;
+    }
+
+    private void rebuildIndex() {
+        keyIndex.clear();
+        indexBase = 0;
+        for (int i = 0; i < mData.size(); i++) {
+            keyIndex.put(getItemKey(mData.get(i)), i);
+        }
+
+        indexedSize = mData.size();
+        indexValid = true;
     }
 
     private int getLayoutId(int viewType) {
         return layouts.get(viewType);
     }
 
+    /**
+     * @return 当前绑定到行View的view holder，item不在屏幕上（未绑定）时可能为null
+     */
     protected RecyclerViewHolder getViewHolder(int viewType, String viewHolderKey) {
-        if (multiTypeViewHolders.containsKey(viewType)) {
-            return multiTypeViewHolders.get(viewType).get(viewHolderKey);
+        RecyclerViewHolder h = boundViewHolders.get(viewHolderKey);
+        if (h != null && holderFactories.get(viewType) != null) {
+            return h;
         }
 
         return null;
@@ -7,11 +7,9 @@ import android.view.ViewGroup;
 
 import com.netease.nim.uikit.common.ui.recyclerview.holder.BaseViewHolder;
 import com.netease.nim.uikit.common.ui.recyclerview.holder.RecyclerViewHolder;
+import com.netease.nim.uikit.common.ui.recyclerview.holder.RecyclerViewHolderFactory;
 
-import java.lang.reflect.Constructor;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public abstract class BaseMultiItemQuickAdapter<T, K extends BaseViewHolder> extends BaseQuickAdapter<T, K> {
 
@@ -21,14 +19,9 @@ public abstract class BaseMultiItemQuickAdapter<T, K extends BaseViewHolder> ext
     private SparseArray<Integer> layouts;
 
     /**
-     * viewType->view holder class
+     * viewType->view holder factory
      */
-    private SparseArray<Class<? extends RecyclerViewHolder>> holderClasses;
-
-    /**
-     * viewType->view holder instance
-     */
-    private Map<Integer, Map<String, RecyclerViewHolder>> multiTypeViewHolders;
+    private SparseArray<RecyclerViewHolderFactory> holderFactories;
 
     /**
      * get view type from data item
@@ -64,17 +57,11 @@ public abstract class BaseMultiItemQuickAdapter<T, K extends BaseViewHolder> ext
         }
         layouts.put(type, layoutResId);
 
-        // view holder class
-        if (holderClasses == null) {
-            holderClasses = new SparseArray<>();
-        }
-        holderClasses.put(type, viewHolderClass);
-
-        // view holder
-        if (multiTypeViewHolders == null) {
-            multiTypeViewHolders = new HashMap<>();
+        // view holder factory
+        if (holderFactories == null) {
+            holderFactories = new SparseArray<>();
         }
-        multiTypeViewHolders.put(type, new HashMap<String, RecyclerViewHolder>());
+        holderFactories.put(type, new RecyclerViewHolderFactory(viewHolderClass));
     }
 
     @Override
@@ -84,7 +71,10 @@ public abstract class BaseMultiItemQuickAdapter<T, K extends BaseViewHolder> ext
 
     @Override
     protected K onCreateDefViewHolder(ViewGroup parent, int viewType) {
-        return createBaseViewHolder(parent, getLayoutId(viewType));
+        K baseHolder = createBaseViewHolder(parent, getLayoutId(viewType));
+        // 每一行View一个RecyclerViewHolder，随行View由RecyclerView回收复用
+        baseHolder.setItemHolder(holderFactories.get(viewType).create(this));
+        return baseHolder;
     }
 
     @Override
@@ -94,24 +84,13 @@ public abstract class BaseMultiItemQuickAdapter<T, K extends BaseViewHolder> ext
          * 例如：第一行：s1-> baseHolder01 第二行 s2->baseHolder02。
          * 把s2置顶，则第一行：s2->baseHolder01，第二行：s1->baseHolder02。
          *
-         * 而我们的设计：item与RecyclerViewHolder是一一对应的。因此每次convert都需要拿当前回调的baseHolder进行convert，
-         * RecyclerViewHolder可以从baseHolder中取出该行View所有的子View进行数据绑定（相当于需要经历inflate->refresh的过程）。
+         * RecyclerViewHolder与baseHolder(行View)一一对应，随行View一起被RecyclerView回收复用，数量不随item增长。
+         * 每次convert都从baseHolder中取出该行View所有的子View进行数据绑定（相当于需要经历inflate->refresh的过程）。
          */
-        final String key = getItemKey(item);
-        final int viewType = baseHolder.getItemViewType();
-
-        RecyclerViewHolder h = multiTypeViewHolders.get(viewType).get(key);
+        RecyclerViewHolder h = baseHolder.getItemHolder();
         if (h == null) {
-            // build
-            try {
-                Class<? extends RecyclerViewHolder> cls = holderClasses.get(viewType);
-                Constructor c = cls.getDeclaredConstructors()[0]; // 第一个显式的构造函数
-                c.setAccessible(true);
-                h = (RecyclerViewHolder) c.newInstance(new Object[]{this});
-                multiTypeViewHolders.get(viewType).put(key, h);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            h = holderFactories.get(baseHolder.getItemViewType()).create(this);
+            baseHolder.setItemHolder(h);
         }
 
         // convert
@@ -120,14 +99,6 @@ public abstract class BaseMultiItemQuickAdapter<T, K extends BaseViewHolder> ext
         }
     }
 
-    @Override
-    protected void onRemove(final T item) {
-        super.onRemove(item);
-
-        // 移除holder
-        multiTypeViewHolders.get(getViewType(item)).remove(getItemKey(item));
-    }
-
     private int getLayoutId(int viewType) {
         return layouts.get(viewType);
     }
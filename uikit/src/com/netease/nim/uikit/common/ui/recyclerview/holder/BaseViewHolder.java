@@ -58,6 +58,11 @@ public class BaseViewHolder extends RecyclerView.ViewHolder {
      */
     Object associatedObject;
 
+    /**
+     * 该行绑定的RecyclerViewHolder，随行View一起由RecyclerView回收复用
+     */
+    private RecyclerViewHolder itemHolder;
+
 
     public BaseViewHolder(View view) {
         super(view);
@@ -501,6 +506,14 @@ public class BaseViewHolder extends RecyclerView.ViewHolder {
         this.associatedObject = associatedObject;
     }
 
+    public RecyclerViewHolder getItemHolder() {
+        return itemHolder;
+    }
+
+    public void setItemHolder(RecyclerViewHolder itemHolder) {
+        this.itemHolder = itemHolder;
+    }
+
     public Context getContext() {
         if (convertView == null) {
             return null;
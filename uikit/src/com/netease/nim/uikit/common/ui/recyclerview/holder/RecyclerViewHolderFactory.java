@@ -0,0 +1,27 @@
+package com.netease.nim.uikit.common.ui.recyclerview.holder;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * RecyclerViewHolder工厂，构造函数只解析一次
+ */
+public final class RecyclerViewHolderFactory {
+
+    private final Constructor<?> constructor;
+
+    public RecyclerViewHolderFactory(Class<? extends RecyclerViewHolder> cls) {
+        constructor = cls.getDeclaredConstructors()[0]; // 第一个显式的构造函数
+        constructor.setAccessible(true);
+    }
+
+    public RecyclerViewHolder create(RecyclerView.Adapter adapter) {
+        try {
+            return (RecyclerViewHolder) constructor.newInstance(adapter);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.netease.nim.uikit.contact.core.item;
 
+import com.netease.nim.uikit.contact.core.query.TextComparator;
+
 /**
  * 通讯录数据项抽象类
  * Created by huangjun on 2015/2/10.
@@ -24,4 +26,34 @@ public abstract class AbsContactItem {
     public static int compareType(int lhs, int rhs) {
         return lhs - rhs;
     }
+
+    /**
+     * 排序键缓存，文本(显示名称)变化时重新计算
+     */
+    private static final class Collation {
+        final String text;
+
+        final int[] key;
+
+        Collation(String text) {
+            this.text = text;
+            this.key = TextComparator.getCollationKey(text);
+        }
+    }
+
+    private Collation collation;
+
+    /**
+     * @param text 排序文本
+     * @return 排序键，见 {@link TextComparator#getCollationKey(String)}
+     */
+    protected final int[] getCollationKey(String text) {
+        Collation c = collation;
+        if (c == null || (c.text != text && (text == null || !text.equals(c.text)))) {
+            c = new Collation(text);
+            collation = c;
+        }
+
+        return c.key;
+    }
 }
@@ -32,7 +32,7 @@ public class ContactItem extends AbsContactItem implements Comparable<ContactIte
 		if (compare != 0) {
 			return compare;
 		} else {
-			return TextComparator.compareIgnoreCase(getCompare(), item.getCompare());
+			return TextComparator.compare(getCollationKey(), item.getCollationKey());
 		}
 	}
 
@@ -47,6 +47,14 @@ public class ContactItem extends AbsContactItem implements Comparable<ContactIte
 		return !TextUtils.isEmpty(group) ? group : ContactGroupStrategy.GROUP_SHARP;
 	}
 	
+	/**
+	 * 
+	 * @return collation key of display name
+	 */
+	public final int[] getCollationKey() {
+		return getCollationKey(getCompare());
+	}
+	
 	private String getCompare() {
 		IContact contact = getContact();
 		return contact != null ? contact.getDisplayName() : null;
@@ -80,6 +80,11 @@ public abstract class AbsContactDataList {
 
     public abstract void build();
 
+    /**
+     * 创建使用相同分组策略的空列表（用于发布中间结果）
+     */
+    public abstract AbsContactDataList newInstance();
+
     public final void add(AbsContactItem item) {
         if (item == null) {
             return;
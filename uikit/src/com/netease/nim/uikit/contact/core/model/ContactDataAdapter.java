@@ -2,6 +2,7 @@ package com.netease.nim.uikit.contact.core.model;
 
 import android.content.Context;
 import android.os.AsyncTask;
+import android.util.SparseIntArray;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.BaseAdapter;
@@ -16,12 +17,14 @@ import com.netease.nim.uikit.common.util.log.LogUtil;
 import com.netease.nim.uikit.contact.core.item.AbsContactItem;
 import com.netease.nim.uikit.contact.core.item.ContactItemFilter;
 import com.netease.nim.uikit.contact.core.model.ContactDataTask.Host;
+import com.netease.nim.uikit.contact.core.query.ContactSearchIndex;
 import com.netease.nim.uikit.contact.core.query.IContactDataProvider;
 import com.netease.nim.uikit.contact.core.query.TextQuery;
 import com.netease.nim.uikit.contact.core.viewholder.AbsContactViewHolder;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -41,6 +44,8 @@ public class ContactDataAdapter extends BaseAdapter {
 
     private final Map<Integer, Class<? extends AbsContactViewHolder<? extends AbsContactItem>>> viewHolderMap;
 
+    private final SparseIntArray viewTypes = new SparseIntArray(6); // item type -> view type
+
     private final ContactGroupStrategy groupStrategy;
 
     private final IContactDataProvider dataProvider;
@@ -51,6 +56,8 @@ public class ContactDataAdapter extends BaseAdapter {
 
     private AbsContactDataList datas;
 
+    private int[] itemViewTypes; // position -> view type
+
     protected final HashMap<String, Integer> indexes = new HashMap<>();
 
     //
@@ -70,6 +77,17 @@ public class ContactDataAdapter extends BaseAdapter {
 
     public void addViewHolder(int itemDataType, Class<? extends AbsContactViewHolder<? extends AbsContactItem>> viewHolder) {
         this.viewHolderMap.put(itemDataType, viewHolder);
+
+        // view type即item type在viewHolderMap中的次序
+        viewTypes.clear();
+        int index = 0;
+        for (Integer itemType : viewHolderMap.keySet()) {
+            viewTypes.put(itemType, index++);
+        }
+
+        if (datas != null) {
+            itemViewTypes = buildItemViewTypes(datas);
+        }
     }
 
     public final void setFilter(ContactItemFilter filter) {
@@ -109,6 +127,7 @@ public class ContactDataAdapter extends BaseAdapter {
 
     private void updateData(AbsContactDataList datas) {
         this.datas = datas;
+        this.itemViewTypes = buildItemViewTypes(datas);
 
         updateIndexes(datas.getIndexes());
 
@@ -122,21 +141,18 @@ public class ContactDataAdapter extends BaseAdapter {
 
     @Override
     public int getItemViewType(int position) {
-        Object obj = getItem(position);
-        if (obj == null) {
-            return -1;
-        }
-        AbsContactItem item = (AbsContactItem) obj;
-        int type = item.getItemType();
-        Integer[] types = viewHolderMap.keySet().toArray(new Integer[viewHolderMap.size()]);
+        int[] types = itemViewTypes;
+        return types != null && position >= 0 && position < types.length ? types[position] : -1;
+    }
 
+    private int[] buildItemViewTypes(AbsContactDataList datas) {
+        int[] types = new int[datas.getCount()];
         for (int i = 0; i < types.length; i++) {
-            int itemType = types[i];
-            if (itemType == type) {
-                return i;
-            }
+            AbsContactItem item = datas.getItem(i);
+            types[i] = item != null ? viewTypes.get(item.getItemType(), -1) : -1;
         }
-        return -1;
+
+        return types;
     }
 
     @Override
@@ -209,6 +225,14 @@ public class ContactDataAdapter extends BaseAdapter {
 
     private final List<Task> tasks = new ArrayList<>();
 
+    /**
+     * 增量搜索结果栈：自底向上每一项的搜索词都是前一项的扩展
+     * 输入更长的搜索词时在栈顶结果中过滤，退格时直接复用栈中的结果
+     */
+    private final LinkedList<ContactDataTask> results = new LinkedList<>();
+
+    private int resultsVersion; // 栈中结果对应的通讯录数据版本
+
     /**
      * 启动搜索任务
      *
@@ -222,7 +246,7 @@ public class ContactDataAdapter extends BaseAdapter {
             }
         }
 
-        Task task = new Task(new ContactDataTask(query, dataProvider, filter) {
+        Task task = new Task(getDataVersion(), new ContactDataTask(query, dataProvider, filter, findBase(query)) {
             @Override
             protected void onPreProvide(AbsContactDataList datas) {
                 List<? extends AbsContactItem> itemsND = onNonDataItems();
@@ -244,6 +268,61 @@ public class ContactDataAdapter extends BaseAdapter {
         tasks.remove(task);
     }
 
+    /**
+     * 找到可供增量搜索的上一次结果，并丢弃栈中不再相关的结果
+     */
+    private ContactDataTask findBase(TextQuery query) {
+        if (query == null) {
+            results.clear(); // 重新加载，数据可能已变更
+            return null;
+        }
+
+        int version = getDataVersion();
+        if (version != resultsVersion) {
+            results.clear(); // 数据已变更
+            resultsVersion = version;
+        }
+
+        while (!results.isEmpty()) {
+            ContactDataTask top = results.getLast();
+            if (query.sameAs(top.getQuery()) || query.refines(top.getQuery())) {
+                return top;
+            }
+            results.removeLast();
+        }
+
+        return null;
+    }
+
+    private void onTaskResult(ContactDataTask task, int version) {
+        if (task.getQuery() == null || !task.isFinished()) {
+            return;
+        }
+
+        // 搜索期间数据已变更，结果不再复用
+        if (version != getDataVersion()) {
+            return;
+        }
+
+        if (version != resultsVersion) {
+            results.clear();
+            resultsVersion = version;
+        }
+
+        // 栈顶为同一搜索词（退格复用）时不重复入栈
+        if (!results.isEmpty() && task.getQuery().sameAs(results.getLast().getQuery())) {
+            return;
+        }
+
+        if (results.isEmpty() || task.getQuery().refines(results.getLast().getQuery())) {
+            results.addLast(task);
+        }
+    }
+
+    private static int getDataVersion() {
+        return ContactSearchIndex.getInstance().getVersion();
+    }
+
     /**
      * 搜索/查询数据异步任务
      */
@@ -251,9 +330,12 @@ public class ContactDataAdapter extends BaseAdapter {
     private class Task extends AsyncTask<Void, Object, Void> implements Host {
         final ContactDataTask task;
 
-        Task(ContactDataTask task) {
+        final int version; // 启动时的通讯录数据版本
+
+        Task(int version, ContactDataTask task) {
             task.setHost(this);
 
+            this.version = version;
             this.task = task;
         }
 
@@ -299,6 +381,7 @@ public class ContactDataAdapter extends BaseAdapter {
 
         @Override
         protected void onPostExecute(Void result) {
+            onTaskResult(task, version);
             onTaskFinish(this);
         }
 
@@ -3,6 +3,7 @@ package com.netease.nim.uikit.contact.core.model;
 import com.netease.nim.uikit.contact.core.item.AbsContactItem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,9 +18,13 @@ public class ContactDataList extends AbsContactDataList {
     // RESULT DATA
     //
 
-    private List<Group> groups;
+    private List<Group> groups = new ArrayList<Group>();
 
-    private Map<String, Integer> indexes;
+    private Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+    private AbsContactItem[] items = new AbsContactItem[0]; // 扁平化的列表项(含分组头)
+
+    private int[] offsets = new int[]{0}; // 各分组在列表中的起始位置(前缀和)，末尾为总数
 
     public ContactDataList(ContactGroupStrategy groupStrategy) {
         super(groupStrategy);
@@ -27,28 +32,12 @@ public class ContactDataList extends AbsContactDataList {
 
     @Override
     public int getCount() {
-        int count = 0;
-        for (Group group : groups) {
-            count += group.getCount();
-        }
-        return count;
+        return items.length;
     }
 
     @Override
     public AbsContactItem getItem(int index) {
-        int count = 0;
-        for (Group group : groups) {
-            int gIndex = index - count;
-            int gCount = group.getCount();
-
-            if (gIndex >= 0 && gIndex < gCount) {
-                return group.getItem(gIndex);
-            }
-
-            count += gCount;
-        }
-
-        return null;
+        return index >= 0 && index < items.length ? items[index] : null;
     }
 
     @Override
@@ -58,16 +47,7 @@ public class ContactDataList extends AbsContactDataList {
 
     @Override
     public List<AbsContactItem> getItems() {
-        List<AbsContactItem> items = new ArrayList<AbsContactItem>();
-        for (Group group : groups) {
-            AbsContactItem head = group.getHead();
-            if (head != null) {
-                items.add(head);
-            }
-            items.addAll(group.getItems());
-        }
-
-        return items;
+        return new ArrayList<AbsContactItem>(Arrays.asList(items));
     }
 
     @Override
@@ -75,6 +55,48 @@ public class ContactDataList extends AbsContactDataList {
         return indexes;
     }
 
+    /**
+     * 分组数
+     */
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * 分组在列表中的起始位置
+     */
+    public int getGroupOffset(int group) {
+        return offsets[group];
+    }
+
+    /**
+     * 列表项所在的分组，二分查找前缀和
+     *
+     * @return 越界时为-1
+     */
+    public int getGroupOfPosition(int position) {
+        if (position < 0 || position >= items.length) {
+            return -1;
+        }
+
+        int index = Arrays.binarySearch(offsets, 0, offsets.length - 1, position);
+        if (index < 0) {
+            return -index - 2; // 插入点的前一个分组
+        }
+
+        // 空分组与下一分组起始位置相同，取最后一个
+        while (index + 1 < offsets.length - 1 && offsets[index + 1] == position) {
+            index++;
+        }
+
+        return index;
+    }
+
+    @Override
+    public AbsContactDataList newInstance() {
+        return new ContactDataList(groupStrategy);
+    }
+
     @Override
     public void build() {
         //
@@ -91,14 +113,31 @@ public class ContactDataList extends AbsContactDataList {
         //
 
         Map<String, Integer> indexes = new HashMap<String, Integer>();
+        int[] offsets = new int[groups.size() + 1];
         int count = 0;
-        for (Group group : groups) {
+        for (int i = 0; i < groups.size(); i++) {
+            Group group = groups.get(i);
             if (group.id != null) {
                 indexes.put(group.id, count);
             }
 
+            offsets[i] = count;
             count += group.getCount();
         }
+        offsets[groups.size()] = count;
+
+        //
+        // ITEMS
+        //
+
+        AbsContactItem[] items = new AbsContactItem[count];
+        for (int i = 0; i < groups.size(); i++) {
+            Group group = groups.get(i);
+            int offset = offsets[i];
+            for (int gIndex = 0; gIndex < group.getCount(); gIndex++) {
+                items[offset + gIndex] = group.getItem(gIndex);
+            }
+        }
 
         //
         // RESULT
@@ -106,5 +145,7 @@ public class ContactDataList extends AbsContactDataList {
 
         this.groups = groups;
         this.indexes = indexes;
+        this.items = items;
+        this.offsets = offsets;
     }
 }
@@ -1,14 +1,26 @@
 package com.netease.nim.uikit.contact.core.model;
 
+import com.netease.nim.uikit.UIKitLogTag;
+import com.netease.nim.uikit.common.framework.NimTaskExecutor;
+import com.netease.nim.uikit.common.util.log.LogUtil;
 import com.netease.nim.uikit.contact.core.item.AbsContactItem;
 import com.netease.nim.uikit.contact.core.item.ContactItemFilter;
+import com.netease.nim.uikit.contact.core.query.IContactCompositeProvider;
 import com.netease.nim.uikit.contact.core.query.IContactDataProvider;
+import com.netease.nim.uikit.contact.core.query.IContactRefineProvider;
 import com.netease.nim.uikit.contact.core.query.TextQuery;
 
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * 通讯录获取数据任务
+ * 组合数据源({@link IContactCompositeProvider})的各个数据源并行查询，每完成一个即发布一次中间结果
  * Created by huangjun on 2015/2/10.
  */
 public class ContactDataTask {
@@ -19,24 +31,65 @@ public class ContactDataTask {
         public boolean isCancelled(ContactDataTask task); // 判断调用放是否已经取消
     }
 
+    private static final long DEFAULT_DEADLINE = 30 * 1000; // 数据源默认查询时限
+
+    private static final long CANCEL_CHECK_INTERVAL = 100; // 等待数据源时检查取消的间隔
+
+    // 数据源状态
+    private static final int PART_PENDING = 0;
+    private static final int PART_DONE = 1;
+    private static final int PART_TIMEOUT = 2;
+
+    private static final NimTaskExecutor executor = new NimTaskExecutor("NIM_CONTACT_TASK_EXECUTOR",
+            new NimTaskExecutor.Config(4, 4, 10 * 1000, true));
+
     private final IContactDataProvider dataProvider; // 数据源提供者
 
     private final ContactItemFilter filter; // 项过滤器
 
     private final TextQuery query; // 要搜索的信息，null为查询所有
 
+    private final ContactDataTask base; // 上一次的搜索任务，用于增量搜索
+
+    private final AtomicReferenceArray<List<AbsContactItem>> parts; // 各数据源结果(过滤前)，超时或未完成为null
+
+    private final AtomicIntegerArray partStates; // 各数据源状态，超时后完成的结果不再写入
+
+    private volatile boolean finished;
+
     private Host host;
 
     public ContactDataTask(TextQuery query, IContactDataProvider dataProvider, ContactItemFilter filter) {
+        this(query, dataProvider, filter, null);
+    }
+
+    /**
+     * @param base 上一次的搜索任务：搜索词与query相同时直接复用其结果；query为其扩展时，在其结果中增量过滤
+     */
+    public ContactDataTask(TextQuery query, IContactDataProvider dataProvider, ContactItemFilter filter, ContactDataTask base) {
         this.query = query;
         this.dataProvider = dataProvider;
         this.filter = filter;
+        this.base = base != null && base.dataProvider == dataProvider ? base : null;
+        this.parts = new AtomicReferenceArray<>(getProviderCount());
+        this.partStates = new AtomicIntegerArray(parts.length());
     }
 
     public final void setHost(Host host) {
         this.host = host;
     }
 
+    public final TextQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * 任务是否已完成，完成后可作为后续任务的base
+     */
+    public final boolean isFinished() {
+        return finished;
+    }
+
     protected void onPreProvide(AbsContactDataList datas) {
 
     }
@@ -56,18 +109,211 @@ public class ContactDataTask {
         }
 
         // PROVIDE
-        List<AbsContactItem> items = dataProvider.provide(query);
+        if (parts.length() == 1) {
+            parts.set(0, provide(0));
+            partStates.set(0, PART_DONE);
+        } else if (!provideParallel(datas)) {
+            return;
+        }
 
         // ADD
-        add(datas, items, filter);
+        addParts(datas);
 
         // BUILD
         datas.build();
 
+        finished = true;
+
         // PUBLISH ALL
         publish(datas, true);
     }
 
+    /**
+     * 并行查询各个数据源，每完成一个数据源即发布一次中间结果
+     *
+     * @return 是否查询完成（未被取消）
+     */
+    private boolean provideParallel(AbsContactDataList datas) {
+        Future<?>[] futures = new Future<?>[parts.length()];
+        try {
+            return provideParallel(datas, futures);
+        } finally {
+            // 超时或被取消的数据源不再占用线程池，中断后由数据源自行检查退出
+            for (Future<?> future : futures) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    private boolean provideParallel(AbsContactDataList datas, Future<?>[] futures) {
+        int count = parts.length();
+        final BlockingQueue<Integer> done = new LinkedBlockingQueue<>();
+
+        long start = System.currentTimeMillis();
+        long[] deadlines = new long[count];
+        boolean[] pending = new boolean[count];
+
+        for (int i = 0; i < count; i++) {
+            final int part = i;
+            deadlines[i] = start + getDeadline(i);
+            pending[i] = true;
+
+            futures[i] = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (!isCancelled()) {
+                            List<AbsContactItem> items = provide(part);
+                            // 已超时的数据源，结果丢弃
+                            if (partStates.compareAndSet(part, PART_PENDING, PART_DONE)) {
+                                parts.set(part, items);
+                            }
+                        }
+                    } catch (Throwable tr) {
+                        LogUtil.e(UIKitLogTag.CONTACT, "contact provide error, part=" + part + ", " + tr);
+                    } finally {
+                        done.offer(part);
+                    }
+                }
+            });
+
+            if (futures[i] == null) {
+                done.offer(part); // 线程池已关闭
+            }
+        }
+
+        int remain = count;
+        while (remain > 0) {
+            // CANCELLED
+            if (isCancelled()) {
+                return false;
+            }
+
+            long now = System.currentTimeMillis();
+            long next = Long.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                if (!pending[i]) {
+                    continue;
+                }
+
+                if (deadlines[i] <= now && partStates.compareAndSet(i, PART_PENDING, PART_TIMEOUT)) {
+                    // TIMEOUT, drop its result
+                    pending[i] = false;
+                    remain--;
+                    if (futures[i] != null) {
+                        futures[i].cancel(true);
+                    }
+                    LogUtil.i(UIKitLogTag.CONTACT, "contact provide timeout, part=" + i);
+                } else if (deadlines[i] > now) {
+                    next = Math.min(next, deadlines[i]);
+                }
+            }
+
+            if (remain == 0) {
+                break;
+            }
+
+            // 到时限时刚好完成的数据源，等待其完成通知
+            long wait = next == Long.MAX_VALUE ? CANCEL_CHECK_INTERVAL : Math.min(next - now, CANCEL_CHECK_INTERVAL);
+
+            Integer part;
+            try {
+                part = done.poll(wait, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+
+            if (part == null || !pending[part]) {
+                continue;
+            }
+
+            pending[part] = false;
+            remain--;
+
+            // PUBLISH PARTIAL
+            if (remain > 0 && !isCancelled()) {
+                AbsContactDataList snapshot = datas.newInstance();
+                onPreProvide(snapshot);
+                addParts(snapshot, pending);
+                snapshot.build();
+                publish(snapshot, false);
+            }
+        }
+
+        return true;
+    }
+
+    private int getProviderCount() {
+        if (dataProvider instanceof IContactCompositeProvider) {
+            return ((IContactCompositeProvider) dataProvider).getProviderCount();
+        }
+
+        return 1;
+    }
+
+    private IContactDataProvider getProvider(int part) {
+        if (dataProvider instanceof IContactCompositeProvider) {
+            return ((IContactCompositeProvider) dataProvider).getProvider(part);
+        }
+
+        return dataProvider;
+    }
+
+    private long getDeadline(int part) {
+        long deadline = 0;
+        if (dataProvider instanceof IContactCompositeProvider) {
+            deadline = ((IContactCompositeProvider) dataProvider).getDeadline(part);
+        }
+
+        return deadline > 0 ? deadline : DEFAULT_DEADLINE;
+    }
+
+    private List<AbsContactItem> provide(int part) {
+        IContactDataProvider provider = getProvider(part);
+        List<AbsContactItem> baseItems = base != null && base.isFinished() ? base.parts.get(part) : null;
+
+        if (query != null && baseItems != null) {
+            TextQuery baseQuery = base.getQuery();
+
+            // CACHED
+            if (query.sameAs(baseQuery)) {
+                return baseItems;
+            }
+
+            // REFINE
+            if (query.refines(baseQuery) && provider instanceof IContactRefineProvider) {
+                List<AbsContactItem> items = ((IContactRefineProvider) provider).refine(query, baseQuery, baseItems);
+                if (items != null) {
+                    return items;
+                }
+            }
+        }
+
+        return provider.provide(query);
+    }
+
+    private void addParts(AbsContactDataList datas) {
+        addParts(datas, null);
+    }
+
+    /**
+     * 按数据源顺序加入结果，分组排序由 {@link AbsContactDataList#build()} 按 {@link ContactGroupStrategy} 完成
+     */
+    private void addParts(AbsContactDataList datas, boolean[] pending) {
+        for (int i = 0; i < parts.length(); i++) {
+            if (partStates.get(i) != PART_DONE) {
+                continue; // 超时或未完成
+            }
+
+            List<AbsContactItem> items = parts.get(i);
+            if (items != null && (pending == null || !pending[i])) {
+                add(datas, items, filter);
+            }
+        }
+    }
+
     private void publish(AbsContactDataList datas, boolean all) {
         if (host != null) {
             datas.setQuery(query);
@@ -87,4 +333,4 @@ public class ContactDataTask {
             }
         }
     }
-}
\ No newline at end of file
+}
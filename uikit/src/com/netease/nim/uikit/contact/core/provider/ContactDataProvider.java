@@ -2,18 +2,28 @@ package com.netease.nim.uikit.contact.core.provider;
 
 import com.netease.nim.uikit.contact.core.item.AbsContactItem;
 import com.netease.nim.uikit.contact.core.item.ItemTypes;
+import com.netease.nim.uikit.contact.core.query.IContactCompositeProvider;
 import com.netease.nim.uikit.contact.core.query.IContactDataProvider;
+import com.netease.nim.uikit.contact.core.query.IContactRefineProvider;
 import com.netease.nim.uikit.contact.core.query.TextQuery;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class ContactDataProvider implements IContactDataProvider {
+public class ContactDataProvider implements IContactCompositeProvider, IContactRefineProvider {
+
+    private static final long MSG_DEADLINE = 5 * 1000; // 消息全文检索时限
 
     private int[] itemTypes;
 
+    private final List<IContactDataProvider> providers;
+
     public ContactDataProvider(int... itemTypes) {
         this.itemTypes = itemTypes;
+        this.providers = new ArrayList<>(itemTypes.length);
+        for (int itemType : itemTypes) {
+            providers.add(new ItemTypeProvider(itemType));
+        }
     }
 
     @Override
@@ -27,6 +37,68 @@ public class ContactDataProvider implements IContactDataProvider {
         return data;
     }
 
+    @Override
+    public List<AbsContactItem> refine(TextQuery query, TextQuery previous, List<AbsContactItem> previousItems) {
+        List<AbsContactItem> data = new ArrayList<>();
+
+        // 好友、群：击中结果随搜索词变长单调收缩，只需重新过滤上一次的结果
+        for (AbsContactItem item : previousItems) {
+            if (refine(item, query)) {
+                data.add(item);
+            }
+        }
+
+        // 其他数据源（如消息全文检索不满足单调性）重新检索
+        for (int itemType : itemTypes) {
+            if (!canRefine(itemType)) {
+                data.addAll(provide(itemType, query));
+            }
+        }
+
+        return data;
+    }
+
+    @Override
+    public int getProviderCount() {
+        return providers.size();
+    }
+
+    @Override
+    public IContactDataProvider getProvider(int index) {
+        return providers.get(index);
+    }
+
+    @Override
+    public long getDeadline(int index) {
+        return itemTypes[index] == ItemTypes.MSG ? MSG_DEADLINE : 0;
+    }
+
+    /**
+     * 该类型数据源的结果是否可在上一次结果中过滤得到，其结果项由 {@link #refine(AbsContactItem, TextQuery)} 过滤
+     */
+    private static boolean canRefine(int itemType) {
+        switch (itemType) {
+            case ItemTypes.FRIEND:
+            case ItemTypes.TEAM:
+            case ItemTypes.TEAMS.ADVANCED_TEAM:
+            case ItemTypes.TEAMS.NORMAL_TEAM:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean refine(AbsContactItem item, TextQuery query) {
+        switch (item.getItemType()) {
+            case ItemTypes.FRIEND:
+                return UserDataProvider.refine(item, query);
+            case ItemTypes.TEAM:
+                return TeamDataProvider.refine(item, query);
+            default:
+                return false;
+        }
+    }
+
     private final List<AbsContactItem> provide(int itemType, TextQuery query) {
         switch (itemType) {
             case ItemTypes.FRIEND:
@@ -41,4 +113,36 @@ public class ContactDataProvider implements IContactDataProvider {
                 return new ArrayList<>();
         }
     }
+
+    /**
+     * 单一类型的数据源
+     */
+    private final class ItemTypeProvider implements IContactRefineProvider {
+        private final int itemType;
+
+        ItemTypeProvider(int itemType) {
+            this.itemType = itemType;
+        }
+
+        @Override
+        public List<AbsContactItem> provide(TextQuery query) {
+            return ContactDataProvider.this.provide(itemType, query);
+        }
+
+        @Override
+        public List<AbsContactItem> refine(TextQuery query, TextQuery previous, List<AbsContactItem> previousItems) {
+            if (!canRefine(itemType)) {
+                return null; // 重新检索
+            }
+
+            List<AbsContactItem> data = new ArrayList<>();
+            for (AbsContactItem item : previousItems) {
+                if (ContactDataProvider.refine(item, query)) {
+                    data.add(item);
+                }
+            }
+
+            return data;
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.netease.nim.uikit.contact.core.provider;
 
 import com.netease.nim.uikit.contact.core.model.IContact;
 import com.netease.nim.uikit.contact.core.provider.ContactSearch.HitInfo.Type;
+import com.netease.nim.uikit.contact.core.query.ContactSearchIndex;
 import com.netease.nim.uikit.contact.core.query.TextQuery;
 import com.netease.nim.uikit.contact.core.query.TextSearcher;
 import com.netease.nim.uikit.cache.TeamDataCache;
@@ -77,14 +78,15 @@ public class ContactSearch {
     public static final HitInfo hitInfoFriend(IContact contact, TextQuery query) {
         String name = contact.getDisplayName();
         String account = contact.getContactId();
+        ContactSearchIndex index = ContactSearchIndex.getInstance();
 
-        int[] range = TextSearcher.indexOf(query.t9, name, query.text);
+        int[] range = index.indexOf(account, name, query);
 
         if (range != null) {
             return new HitInfo(Type.Name, name, range);
         }
 
-        range = TextSearcher.indexOf(query.t9, account, query.text);
+        range = index.indexOf(account, account, query);
 
         if (range != null) {
             return new HitInfo(Type.Account, account, range);
@@ -23,7 +23,7 @@ public final class MsgDataProvider {
     private static final String TAG = "MsgDataProvider";
 
     public static final List<AbsContactItem> provide(TextQuery query) {
-        if (TextUtils.isEmpty(query.text) || TextUtils.isEmpty(query.text.trim())) {
+        if (TextUtils.isEmpty(query.text) || TextUtils.isEmpty(query.text.trim()) || isCancelled()) {
             return new ArrayList<>(0);
         }
 
@@ -45,18 +45,29 @@ public final class MsgDataProvider {
         }
 
         // build AbsContactItem
-        if (sources == null) {
+        if (sources == null || isCancelled()) {
             return new ArrayList<>(0);
         }
 
         List<AbsContactItem> items = new ArrayList<>(sources.size());
         for (MsgIndexRecord r : sources) {
+            if (isCancelled()) {
+                return new ArrayList<>(0);
+            }
+
             items.add(new MsgItem(ContactHelper.makeContactFromMsgIndexRecord(r), r, querySession));
         }
 
         return items;
     }
 
+    /**
+     * 查询超时或被取消时，查询线程被中断（见ContactDataTask），结果已无用
+     */
+    private static boolean isCancelled() {
+        return Thread.currentThread().isInterrupted();
+    }
+
     private static List<MsgIndexRecord> searchSession(String query, SessionTypeEnum sessionType, String sessionId, MsgIndexRecord anchor) {
         long startTime = System.currentTimeMillis();
 
@@ -29,11 +29,23 @@ public class TeamDataProvider {
         return items;
     }
 
+    /**
+     * 在上一次的结果中重新过滤（query为上一次搜索词的扩展）
+     */
+    public static final boolean refine(AbsContactItem item, TextQuery query) {
+        if (!(item instanceof ContactItem) || !(((ContactItem) item).getContact() instanceof TeamContact)) {
+            return false;
+        }
+
+        Team team = ((TeamContact) ((ContactItem) item).getContact()).getTeam();
+        return team != null && ContactSearch.hitTeam(team, query);
+    }
+
     private static AbsContactItem createTeamItem(TeamContact team) {
         return new ContactItem(team, ItemTypes.TEAM) {
             @Override
             public int compareTo(ContactItem item) {
-                return compareTeam((TeamContact) getContact(), (TeamContact) (item.getContact()));
+                return TextComparator.compare(getCollationKey(), item.getCollationKey());
             }
 
             @Override
@@ -43,10 +55,6 @@ public class TeamDataProvider {
         };
     }
 
-    private static int compareTeam(TeamContact lhs, TeamContact rhs) {
-        return TextComparator.compareIgnoreCase(lhs.getDisplayName(), rhs.getDisplayName());
-    }
-
     /**
      * * 数据查询
      */
@@ -37,7 +37,7 @@ public class TeamMemberDataProvider {
         return new ContactItem(teamMember, ItemTypes.TEAM_MEMBER) {
             @Override
             public int compareTo(ContactItem item) {
-                return compareTeamMember((TeamMemberContact) getContact(), (TeamMemberContact) (item.getContact()));
+                return TextComparator.compare(getCollationKey(), item.getCollationKey());
             }
 
             @Override
@@ -53,10 +53,6 @@ public class TeamMemberDataProvider {
         };
     }
 
-    private static int compareTeamMember(TeamMemberContact lhs, TeamMemberContact rhs) {
-        return TextComparator.compareIgnoreCase(lhs.getDisplayName(), rhs.getDisplayName());
-    }
-
     /**
      * * 数据查询
      */
@@ -7,6 +7,7 @@ import com.netease.nim.uikit.common.util.log.LogUtil;
 import com.netease.nim.uikit.contact.core.item.AbsContactItem;
 import com.netease.nim.uikit.contact.core.item.ContactItem;
 import com.netease.nim.uikit.contact.core.item.ItemTypes;
+import com.netease.nim.uikit.contact.core.query.ContactSearchIndex;
 import com.netease.nim.uikit.contact.core.query.TextQuery;
 import com.netease.nim.uikit.contact.core.util.ContactHelper;
 import com.netease.nimlib.sdk.friend.model.Friend;
@@ -15,27 +16,51 @@ import com.netease.nimlib.sdk.uinfo.UserInfoProvider;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 public final class UserDataProvider {
     public static final List<AbsContactItem> provide(TextQuery query) {
         List<UserInfoProvider.UserInfo> sources = query(query);
         List<AbsContactItem> items = new ArrayList<>(sources.size());
         for (UserInfoProvider.UserInfo u : sources) {
-            items.add(new ContactItem(ContactHelper.makeContactFromUserInfo(u), ItemTypes.FRIEND));
+            items.add(new UserItem(u));
         }
 
         LogUtil.i(UIKitLogTag.CONTACT, "contact provide data size =" + items.size());
         return items;
     }
 
+    /**
+     * 在上一次的结果中重新过滤（query为上一次搜索词的扩展）
+     */
+    public static final boolean refine(AbsContactItem item, TextQuery query) {
+        if (!(item instanceof UserItem)) {
+            return false;
+        }
+
+        UserInfoProvider.UserInfo user = ((UserItem) item).user;
+        Boolean hit = ContactSearchIndex.getInstance().hit(user.getAccount(), user.getName(), query);
+        if (hit != null) {
+            return hit;
+        }
+
+        return hit(user, query);
+    }
+
     private static final List<UserInfoProvider.UserInfo> query(TextQuery query) {
         if (query != null) {
             List<UserInfoProvider.UserInfo> users = NimUIKit.getContactProvider().getUserInfoOfMyFriends();
+            ContactSearchIndex index = ContactSearchIndex.getInstance();
+            Set<String> hits = index.search(query); // 索引未构建时为null
             UserInfoProvider.UserInfo user;
             for (Iterator<UserInfoProvider.UserInfo> iter = users.iterator(); iter.hasNext(); ) {
                 user = iter.next();
-                Friend friend = FriendDataCache.getInstance().getFriendByAccount(user.getAccount());
-                boolean hit = ContactSearch.hitUser(user, query) || (friend != null && ContactSearch.hitFriend(friend, query));
+                boolean hit;
+                if (hits != null && index.covers(user.getAccount(), user.getName())) {
+                    hit = hits.contains(user.getAccount());
+                } else {
+                    hit = hit(user, query);
+                }
                 if (!hit) {
                     iter.remove();
                 }
@@ -45,4 +70,18 @@ public final class UserDataProvider {
             return NimUIKit.getContactProvider().getUserInfoOfMyFriends();
         }
     }
-}
\ No newline at end of file
+
+    private static boolean hit(UserInfoProvider.UserInfo user, TextQuery query) {
+        Friend friend = FriendDataCache.getInstance().getFriendByAccount(user.getAccount());
+        return ContactSearch.hitUser(user, query) || (friend != null && ContactSearch.hitFriend(friend, query));
+    }
+
+    private static final class UserItem extends ContactItem {
+        final UserInfoProvider.UserInfo user;
+
+        UserItem(UserInfoProvider.UserInfo user) {
+            super(ContactHelper.makeContactFromUserInfo(user), ItemTypes.FRIEND);
+            this.user = user;
+        }
+    }
+}
@@ -0,0 +1,542 @@
+package com.netease.nim.uikit.contact.core.query;
+
+import android.text.TextUtils;
+
+import com.netease.nim.uikit.UIKitLogTag;
+import com.netease.nim.uikit.cache.FriendDataCache;
+import com.netease.nim.uikit.cache.NimUserInfoCache;
+import com.netease.nim.uikit.cache.TeamDataCache;
+import com.netease.nim.uikit.common.util.log.LogUtil;
+import com.netease.nim.uikit.uinfo.UserInfoHelper;
+import com.netease.nim.uikit.uinfo.UserInfoObservable;
+import com.netease.nimlib.sdk.friend.model.Friend;
+import com.netease.nimlib.sdk.team.model.Team;
+import com.netease.nimlib.sdk.uinfo.model.NimUserInfo;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 好友搜索索引
+ * 预先计算好友帐号、昵称、备注名的拼音/T9形式，并按“起始字符”和“相邻字符对”建立倒排表。
+ * 查询时先用倒排表求交集得到候选集，再用 {@link TextSearcher} 在预计算的拼音上校验，
+ * 因此命中结果及命中区间与 {@link TextSearcher} 完全一致（支持前缀、中缀、首字母查询）。
+ * 数据来源于 {@link FriendDataCache} 和 {@link NimUserInfoCache}，随其变更通知增量更新。
+ */
+public class ContactSearchIndex {
+
+    public static ContactSearchIndex getInstance() {
+        return InstanceHolder.instance;
+    }
+
+    /**
+     * 索引字段
+     */
+    private static final class Field {
+        final String text;
+
+        final String[] pinyins;
+
+        final String[] pinyinsT9;
+
+        Field(String text) {
+            this.text = text;
+            this.pinyins = TextSearcher.pinyins(false, text);
+            this.pinyinsT9 = TextSearcher.pinyins(true, text);
+        }
+
+        String[] pinyins(boolean t9) {
+            return t9 ? pinyinsT9 : pinyins;
+        }
+
+        boolean contains(boolean t9, String query) {
+            return TextSearcher.contains(t9, text, pinyins(t9), query);
+        }
+    }
+
+    /**
+     * 索引项（一个好友）
+     */
+    private static final class Entry {
+        final int id;
+
+        final String account;
+
+        final String name;
+
+        final Field[] fields;
+
+        Entry(int id, String account, String name, String alias) {
+            this.id = id;
+            this.account = account;
+            this.name = name;
+
+            List<Field> fields = new ArrayList<>(3);
+            fields.add(new Field(account));
+            if (!TextUtils.isEmpty(name)) {
+                fields.add(new Field(name));
+            }
+            if (!TextUtils.isEmpty(alias)) {
+                fields.add(new Field(alias));
+            }
+            this.fields = fields.toArray(new Field[fields.size()]);
+        }
+
+        boolean hit(TextQuery query) {
+            for (Field field : fields) {
+                if (field.contains(query.t9, query.text)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        Field getField(String text) {
+            for (Field field : fields) {
+                if (field.text.equals(text)) {
+                    return field;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * 倒排表
+     * starts: 可作为匹配起点的字符 -> 索引项
+     * grams: 匹配中可相邻出现的字符对 -> 索引项
+     */
+    private static final class Postings {
+        final boolean t9;
+
+        final Map<Integer, BitSet> starts = new HashMap<>();
+
+        final Map<Integer, BitSet> grams = new HashMap<>();
+
+        Postings(boolean t9) {
+            this.t9 = t9;
+        }
+
+        void add(Entry entry) {
+            update(entry, true);
+        }
+
+        void remove(Entry entry) {
+            update(entry, false);
+        }
+
+        private void update(Entry entry, boolean add) {
+            for (Field field : entry.fields) {
+                String text = field.text;
+                String[] pinyins = field.pinyins(t9);
+
+                for (int index = 0; index < text.length(); index++) {
+                    char lit = literal(t9, text.charAt(index));
+                    String pinyin = pinyins != null ? pinyins[index] : null;
+
+                    // start
+                    mark(starts, lit, entry.id, add);
+                    if (pinyin != null) {
+                        mark(starts, pinyin.charAt(0), entry.id, add);
+
+                        // inside PinYin
+                        for (int sub = 1; sub < pinyin.length(); sub++) {
+                            mark(grams, gram(pinyin.charAt(sub - 1), pinyin.charAt(sub)), entry.id, add);
+                        }
+                    }
+
+                    // to next character
+                    if (index + 1 < text.length()) {
+                        char nextLit = literal(t9, text.charAt(index + 1));
+                        String nextPinyin = pinyins != null ? pinyins[index + 1] : null;
+
+                        markNext(lit, nextLit, nextPinyin, entry.id, add);
+                        if (pinyin != null) {
+                            markNext(pinyin.charAt(0), nextLit, nextPinyin, entry.id, add);
+                            markNext(pinyin.charAt(pinyin.length() - 1), nextLit, nextPinyin, entry.id, add);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void markNext(char from, char nextLit, String nextPinyin, int id, boolean add) {
+            mark(grams, gram(from, nextLit), id, add);
+            if (nextPinyin != null) {
+                mark(grams, gram(from, nextPinyin.charAt(0)), id, add);
+            }
+        }
+
+        private static void mark(Map<Integer, BitSet> postings, int key, int id, boolean add) {
+            BitSet ids = postings.get(key);
+            if (add) {
+                if (ids == null) {
+                    ids = new BitSet();
+                    postings.put(key, ids);
+                }
+                ids.set(id);
+            } else if (ids != null) {
+                ids.clear(id);
+                if (ids.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+
+        /**
+         * @return 候选索引项，一定是最终结果的超集
+         */
+        BitSet candidates(String query) {
+            BitSet ids = starts.get((int) query.charAt(0));
+            if (ids == null) {
+                return null;
+            }
+
+            BitSet candidates = (BitSet) ids.clone();
+            for (int index = 1; index < query.length() && !candidates.isEmpty(); index++) {
+                ids = grams.get(gram(query.charAt(index - 1), query.charAt(index)));
+                if (ids == null) {
+                    return null;
+                }
+                candidates.and(ids);
+            }
+
+            return candidates;
+        }
+
+        void clear() {
+            starts.clear();
+            grams.clear();
+        }
+    }
+
+    /**
+     * T9 characters
+     */
+    private static final char[] T9 = {'2', '2', '2', '3', '3', '3', '4', '4',
+            '4', '5', '5', '5', '6', '6', '6', '7', '7', '7', '7', '8', '8',
+            '8', '9', '9', '9', '9'};
+
+    /**
+     * 与 {@link TextSearcher} 一致的字符归一化
+     */
+    private static char literal(boolean t9, char chr) {
+        if (t9) {
+            if ('a' <= chr && chr <= 'z') {
+                return T9[chr - 'a'];
+            } else if ('A' <= chr && chr <= 'Z') {
+                return T9[chr - 'A'];
+            }
+        } else if ('A' <= chr && chr <= 'Z') {
+            return (char) (chr + 'a' - 'A');
+        }
+
+        return chr;
+    }
+
+    private static int gram(char a, char b) {
+        return a << 16 | b;
+    }
+
+    /**
+     * 属性
+     */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private final List<Entry> entryIds = new ArrayList<>();
+
+    private final BitSet usedIds = new BitSet();
+
+    private final Postings postings = new Postings(false);
+
+    private final Postings postingsT9 = new Postings(true);
+
+    private boolean ready;
+
+    private final Set<String> pendingUpdates = new HashSet<>(); // 索引构建完成前变更的帐号
+
+    private final AtomicInteger version = new AtomicInteger(); // 通讯录数据版本，好友、用户资料、群变更时递增
+
+    /**
+     * 构建索引与清理
+     */
+
+    public void buildIndex() {
+        loadIndex().run();
+    }
+
+    /**
+     * 在调用线程预计算所有好友的拼音（耗时），返回替换索引的操作，见 {@link com.netease.nim.uikit.cache.DataCacheManager}
+     */
+    public Runnable loadIndex() {
+        List<String> accounts = FriendDataCache.getInstance().getMyFriendAccounts();
+        final List<Entry> staged = new ArrayList<>(accounts.size());
+        for (String account : accounts) {
+            if (!TextUtils.isEmpty(account)) {
+                staged.add(newEntry(staged.size(), account));
+            }
+        }
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                synchronized (ContactSearchIndex.this) {
+                    version.incrementAndGet();
+                    clearIndex();
+                    for (Entry entry : staged) {
+                        putEntry(entry);
+                    }
+
+                    ready = true;
+
+                    // 预计算期间变更的好友重新索引
+                    List<String> changed = new ArrayList<>(pendingUpdates);
+                    pendingUpdates.clear();
+                    updateEntries(changed);
+
+                    LogUtil.i(UIKitLogTag.CONTACT, "build ContactSearchIndex completed, entries count = " + entries.size());
+                }
+            }
+        };
+    }
+
+    public synchronized void clear() {
+        version.incrementAndGet();
+        clearIndex();
+        pendingUpdates.clear();
+
+        ready = false;
+    }
+
+    private void clearIndex() {
+        entries.clear();
+        entryIds.clear();
+        usedIds.clear();
+        postings.clear();
+        postingsT9.clear();
+    }
+
+    /**
+     * ******************************* 查询接口 *********************************
+     */
+
+    /**
+     * 通讯录数据版本，版本变化后之前的搜索结果不能再用于增量搜索
+     */
+    public int getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 是否已索引该好友，且索引中的昵称与给定昵称一致
+     */
+    public synchronized boolean covers(String account, String name) {
+        if (!ready || account == null) {
+            return false;
+        }
+
+        Entry entry = entries.get(account);
+        return entry != null && TextUtils.equals(entry.name, name);
+    }
+
+    /**
+     * 查询帐号、昵称或备注名被击中的好友
+     *
+     * @return 被击中的好友帐号，索引未构建时返回null
+     */
+    public synchronized Set<String> search(TextQuery query) {
+        if (!ready || query == null || TextUtils.isEmpty(query.text)) {
+            return null;
+        }
+
+        Set<String> hits = new HashSet<>();
+
+        BitSet candidates = (query.t9 ? postingsT9 : postings).candidates(query.text);
+        if (candidates == null) {
+            return hits;
+        }
+
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            Entry entry = entryIds.get(id);
+            if (entry.hit(query)) {
+                hits.add(entry.account);
+            }
+        }
+
+        return hits;
+    }
+
+    /**
+     * 判断单个好友是否被击中，使用预计算的拼音
+     *
+     * @return 未被索引覆盖时返回null，见 {@link #covers(String, String)}
+     */
+    public synchronized Boolean hit(String account, String name, TextQuery query) {
+        if (!covers(account, name)) {
+            return null;
+        }
+
+        return entries.get(account).hit(query);
+    }
+
+    /**
+     * 返回击中区间，同 {@link TextSearcher#indexOf(boolean, String, String)}，已索引的文本使用预计算的拼音
+     */
+    public int[] indexOf(String account, String text, TextQuery query) {
+        Field field = null;
+        if (account != null && text != null) {
+            synchronized (this) {
+                Entry entry = entries.get(account);
+                field = entry != null ? entry.getField(text) : null;
+            }
+        }
+
+        if (field != null) {
+            return TextSearcher.indexOf(query.t9, field.text, field.pinyins(query.t9), query.text);
+        }
+
+        return TextSearcher.indexOf(query.t9, text, query.text);
+    }
+
+    /**
+     * *************************************** 索引维护 ********************************************
+     */
+
+    private void addEntry(String account) {
+        if (TextUtils.isEmpty(account)) {
+            return;
+        }
+
+        putEntry(newEntry(usedIds.nextClearBit(0), account));
+    }
+
+    private static Entry newEntry(int id, String account) {
+        NimUserInfo user = NimUserInfoCache.getInstance().getUserInfo(account);
+        Friend friend = FriendDataCache.getInstance().getFriendByAccount(account);
+
+        return new Entry(id, account, user != null ? user.getName() : null, friend != null ? friend.getAlias() : null);
+    }
+
+    private void putEntry(Entry entry) {
+        int id = entry.id;
+        usedIds.set(id);
+        if (id < entryIds.size()) {
+            entryIds.set(id, entry);
+        } else {
+            entryIds.add(entry);
+        }
+        entries.put(entry.account, entry);
+
+        postings.add(entry);
+        postingsT9.add(entry);
+    }
+
+    private void removeEntry(String account) {
+        Entry entry = entries.remove(account);
+        if (entry == null) {
+            return;
+        }
+
+        postings.remove(entry);
+        postingsT9.remove(entry);
+
+        entryIds.set(entry.id, null);
+        usedIds.clear(entry.id);
+    }
+
+    private synchronized void updateEntries(List<String> accounts) {
+        if (accounts == null) {
+            return;
+        }
+
+        version.incrementAndGet();
+
+        if (!ready) {
+            pendingUpdates.addAll(accounts);
+            return;
+        }
+
+        for (String account : accounts) {
+            removeEntry(account);
+
+            if (FriendDataCache.getInstance().isMyFriend(account)) {
+                addEntry(account);
+            }
+        }
+    }
+
+    /**
+     * 监听缓存变更，增量更新索引
+     */
+    public void registerObservers(boolean register) {
+        FriendDataCache.getInstance().registerFriendDataChangedObserver(friendDataChangedObserver, register);
+        if (register) {
+            UserInfoHelper.registerObserver(userInfoObserver);
+        } else {
+            UserInfoHelper.unregisterObserver(userInfoObserver);
+        }
+
+        if (register) {
+            TeamDataCache.getInstance().registerTeamDataChangedObserver(teamDataChangedObserver);
+        } else {
+            TeamDataCache.getInstance().unregisterTeamDataChangedObserver(teamDataChangedObserver);
+        }
+    }
+
+    private FriendDataCache.FriendDataChangedObserver friendDataChangedObserver = new FriendDataCache.FriendDataChangedObserver() {
+        @Override
+        public void onAddedOrUpdatedFriends(List<String> accounts) {
+            updateEntries(accounts);
+        }
+
+        @Override
+        public void onDeletedFriends(List<String> accounts) {
+            updateEntries(accounts);
+        }
+
+        @Override
+        public void onAddUserToBlackList(List<String> accounts) {
+            updateEntries(accounts);
+        }
+
+        @Override
+        public void onRemoveUserFromBlackList(List<String> accounts) {
+            updateEntries(accounts);
+        }
+    };
+
+    private UserInfoObservable.UserInfoObserver userInfoObserver = new UserInfoObservable.UserInfoObserver() {
+        @Override
+        public void onUserInfoChanged(List<String> accounts) {
+            updateEntries(accounts);
+        }
+    };
+
+    private TeamDataCache.TeamDataChangedObserver teamDataChangedObserver = new TeamDataCache.TeamDataChangedObserver() {
+        @Override
+        public void onUpdateTeams(List<Team> teams) {
+            version.incrementAndGet(); // 群不在索引中，只使搜索结果失效
+        }
+
+        @Override
+        public void onRemoveTeam(Team team) {
+            version.incrementAndGet();
+        }
+    };
+
+    /**
+     * ************************************ 单例 **********************************************
+     */
+
+    static class InstanceHolder {
+        final static ContactSearchIndex instance = new ContactSearchIndex();
+    }
+}
@@ -0,0 +1,22 @@
+package com.netease.nim.uikit.contact.core.query;
+
+/**
+ * 由多个独立数据源组成的通讯录数据源提供者接口
+ * 各数据源并行查询，先完成的先返回中间结果
+ */
+public interface IContactCompositeProvider extends IContactDataProvider {
+    /**
+     * 数据源个数
+     */
+    public int getProviderCount();
+
+    /**
+     * 第index个数据源，也可以实现 {@link IContactRefineProvider} 以支持增量搜索
+     */
+    public IContactDataProvider getProvider(int index);
+
+    /**
+     * 第index个数据源的查询时限（毫秒），超时的数据源结果将被丢弃，<=0 表示使用默认时限
+     */
+    public long getDeadline(int index);
+}
@@ -0,0 +1,19 @@
+package com.netease.nim.uikit.contact.core.query;
+
+import com.netease.nim.uikit.contact.core.item.AbsContactItem;
+
+import java.util.List;
+
+/**
+ * 支持增量搜索的通讯录数据源提供者接口
+ * 当新的搜索词是上一次搜索词的扩展时，只需要在上一次的结果中重新过滤
+ */
+public interface IContactRefineProvider extends IContactDataProvider {
+    /**
+     * @param query         新的搜索词，满足 query.refines(previous)
+     * @param previous      上一次的搜索词
+     * @param previousItems 上一次 provide/refine 返回的数据
+     * @return 过滤后的数据，返回null表示无法增量搜索，需要重新 provide
+     */
+    public List<AbsContactItem> refine(TextQuery query, TextQuery previous, List<AbsContactItem> previousItems);
+}
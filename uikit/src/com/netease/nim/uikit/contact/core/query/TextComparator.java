@@ -49,6 +49,77 @@ public class TextComparator {
 		return a.length() - b.length();
 	}
 	
+	/**
+	 * 
+	 * @param s
+	 * @return collation key of s, comparing keys with {@link #compare(int[], int[])} 
+	 *         gives the same order as {@link #compareIgnoreCase(String, String)}
+	 */
+	public static final int[] getCollationKey(String s) {
+		if (s == null) {
+			return null;
+		}
+		
+		int[] key = new int[s.length()];
+		
+		for (int index = 0; index < s.length(); index++) {
+			key[index] = getCollationKey(s.charAt(index));
+		}
+		
+		return key;
+	}
+	
+	/**
+	 * 
+	 * @param a collation key
+	 * @param b collation key
+	 * @return compare
+	 */
+	public static final int compare(int[] a, int[] b) {
+		if (a == b) {
+			return 0;
+		}
+		
+		if (a == null) {
+			return -1;
+		}
+		
+		if (b == null) {
+			return 1;
+		}
+		
+		for (int index = 0; index < a.length && index < b.length; index++) {
+			if (a[index] != b[index]) {
+				return a[index] < b[index] ? -1 : 1;
+			}
+		}
+		
+		return a.length - b.length;
+	}
+	
+	/** ASCII [0, 0x24) */
+	private static final int KEY_PINYIN = 0x24;
+	
+	/** PinYin index and character */
+	private static final int KEY_OTHER = KEY_PINYIN + (PinYinTable.pinyin.length << 16);
+	
+	/**
+	 * ASCII (ignore case) < PinYin (by index, then by character) < others (by character)
+	 */
+	private static int getCollationKey(char c) {
+		int ai = getAsciiIndex(c, true);
+		if (ai != -1) {
+			return ai;
+		}
+		
+		int pi = PinYin.getIndex(c);
+		if (pi != -1) {
+			return KEY_PINYIN + (pi << 16 | c);
+		}
+		
+		return KEY_OTHER + c;
+	}
+	
 	public static final int compare(char a, char b) {
 		if (a == b) {
 			return 0;
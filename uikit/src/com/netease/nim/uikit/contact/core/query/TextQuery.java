@@ -53,4 +53,34 @@ public final class TextQuery {
 		letter = letters == text.length();
 		pinyin = pinyins == text.length();
 	}
+
+	/**
+	 * 
+	 * @param previous
+	 * @return whether hits of this query are a subset of hits of previous (text extends previous text)
+	 */
+	public boolean refines(TextQuery previous) {
+		if (previous == null || extra != null || previous.extra != null || t9 != previous.t9) {
+			return false;
+		}
+
+		if (TextUtils.isEmpty(text) || TextUtils.isEmpty(previous.text)) {
+			return false;
+		}
+
+		return text.length() > previous.text.length() && text.startsWith(previous.text);
+	}
+
+	/**
+	 * 
+	 * @param other
+	 * @return whether other query yields the same result
+	 */
+	public boolean sameAs(TextQuery other) {
+		if (other == null || extra != null || other.extra != null || t9 != other.t9) {
+			return false;
+		}
+
+		return TextUtils.equals(text, other.text);
+	}
 }
\ No newline at end of file
@@ -9,6 +9,9 @@ public final class TextSearcher {
 	/** string */
 	private String mStr;
 
+	/** precomputed PinYin per character, or NULL to look up on the fly */
+	private String[] mPinyins;
+
 	//
 	// string state
 	// 
@@ -63,7 +66,18 @@ public final class TextSearcher {
 	 * @param i
 	 */
 	public final void initialize(String s, int i) {
+		initialize(s, null, i);
+	}
+
+	/**
+	 * 
+	 * @param s
+	 * @param pinyins PinYin (or PinYin T9) of each character of s, see {@link #pinyins(boolean, String)}
+	 * @param i
+	 */
+	public final void initialize(String s, String[] pinyins, int i) {
 		mStr = s;
+		mPinyins = pinyins;
 		
 		mIndex = i;
 		mEaten = true;
@@ -136,7 +150,11 @@ public final class TextSearcher {
 			
 	        // PinYin
 	        if (!eaten) {
-	        	pinyin = mT9 ? PinYin.getPinYinT9(chr) : PinYin.getPinYin(chr);
+	        	if (mPinyins != null) {
+	        		pinyin = mPinyins[mIndex];
+	        	} else {
+	        		pinyin = mT9 ? PinYin.getPinYinT9(chr) : PinYin.getPinYin(chr);
+	        	}
 	        
 	        	// has
 	        	if (pinyin != null) {
@@ -203,6 +221,18 @@ public final class TextSearcher {
 	 * @return range array or NULL
 	 */
 	public static final int[] indexOf(boolean t9, String str, String query) {
+		return indexOf(t9, str, null, query);
+	}
+	
+	/**
+	 * 
+	 * @param t9
+	 * @param str
+	 * @param pinyins precomputed PinYin of str, see {@link #pinyins(boolean, String)}
+	 * @param query assuming in lower case or [0-9]
+	 * @return range array or NULL
+	 */
+	public static final int[] indexOf(boolean t9, String str, String[] pinyins, String query) {
 		if (TextUtils.isEmpty(str) || TextUtils.isEmpty(query)) {
 			return null;
 		}
@@ -211,7 +241,7 @@ public final class TextSearcher {
 		
 		// move
 EAT:	for (int index = 0; index < str.length(); index++) {
-			searcher.initialize(str, index);
+			searcher.initialize(str, pinyins, index);
 	
 			for (int subIndex = 0; subIndex < query.length(); subIndex++) {
 				if (!searcher.eat(query.charAt(subIndex))) {
@@ -235,6 +265,18 @@ EAT:	for (int index = 0; index < str.length(); index++) {
 	 * @return contains
 	 */
 	public static final boolean contains(boolean t9, String str, String query) {
+		return contains(t9, str, null, query);
+	}
+	
+	/**
+	 * 
+	 * @param t9
+	 * @param str
+	 * @param pinyins precomputed PinYin of str, see {@link #pinyins(boolean, String)}
+	 * @param query assuming in lower case or [0-9]
+	 * @return contains
+	 */
+	public static final boolean contains(boolean t9, String str, String[] pinyins, String query) {
 		if (TextUtils.isEmpty(str) || TextUtils.isEmpty(query)) {
 			return false;
 		}
@@ -243,7 +285,7 @@ EAT:	for (int index = 0; index < str.length(); index++) {
 		
 		// move
 EAT:	for (int index = 0; index < str.length(); index++) {
-			searcher.initialize(str, index);
+			searcher.initialize(str, pinyins, index);
 	
 			for (int subIndex = 0; subIndex < query.length(); subIndex++) {
 				if (!searcher.eat(query.charAt(subIndex))) {
@@ -284,4 +326,26 @@ EAT:	for (int index = 0; index < str.length(); index++) {
 		
 		return searcher.index();
 	}
+	
+	/**
+	 * 
+	 * @param t9
+	 * @param str
+	 * @return PinYin (or PinYin T9) of each character, NULL element for non Chinese character
+	 */
+	public static final String[] pinyins(boolean t9, String str) {
+		if (TextUtils.isEmpty(str)) {
+			return null;
+		}
+		
+		String[] pinyins = new String[str.length()];
+		
+		for (int index = 0; index < str.length(); index++) {
+			char chr = str.charAt(index);
+			
+			pinyins[index] = t9 ? PinYin.getPinYinT9(chr) : PinYin.getPinYin(chr);
+		}
+		
+		return pinyins;
+	}
 }
\ No newline at end of file
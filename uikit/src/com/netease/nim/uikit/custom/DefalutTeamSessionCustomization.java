@@ -8,6 +8,7 @@ import android.widget.Toast;
 
 import com.netease.nim.uikit.NimUIKit;
 import com.netease.nim.uikit.R;
+import com.netease.nim.uikit.cache.SimpleCallback;
 import com.netease.nim.uikit.cache.TeamDataCache;
 import com.netease.nim.uikit.session.SessionCustomization;
 import com.netease.nim.uikit.team.model.TeamExtras;
@@ -34,13 +35,24 @@ public class DefalutTeamSessionCustomization extends SessionCustomization {
         // ActionBar右侧按钮，跳转至群信息界面
         SessionCustomization.OptionsButton infoButton = new SessionCustomization.OptionsButton() {
             @Override
-            public void onClick(Context context, View view, String sessionId) {
+            public void onClick(final Context context, View view, String sessionId) {
                 Team team = TeamDataCache.getInstance().getTeamById(sessionId);
-                if (team != null && team.isMyTeam()) {
-                    NimUIKit.startTeamInfo(context, sessionId);
-                } else {
-                    Toast.makeText(context, R.string.team_invalid_tip, Toast.LENGTH_SHORT).show();
+                if (team != null) {
+                    startTeamInfo(context, team);
+                    return;
                 }
+
+                // 缓存未命中不代表群已失效，查询后再判断
+                TeamDataCache.getInstance().fetchTeamById(sessionId, new SimpleCallback<Team>() {
+                    @Override
+                    public void onResult(boolean success, Team result) {
+                        if (success && result != null) {
+                            startTeamInfo(context, result);
+                        } else {
+                            Toast.makeText(context, R.string.team_invalid_tip, Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
             }
         };
         infoButton.iconId = R.drawable.nim_ic_message_actionbar_team;
@@ -48,6 +60,14 @@ public class DefalutTeamSessionCustomization extends SessionCustomization {
         buttons.add(infoButton);
     }
 
+    private static void startTeamInfo(Context context, Team team) {
+        if (team.isMyTeam()) {
+            NimUIKit.startTeamInfo(context, team.getId());
+        } else {
+            Toast.makeText(context, R.string.team_invalid_tip, Toast.LENGTH_SHORT).show();
+        }
+    }
+
     public void onActivityResult(Activity activity, int requestCode, int resultCode, Intent data) {
         if (requestCode == TeamRequestCode.REQUEST_CODE) {
             if (resultCode == Activity.RESULT_OK) {
@@ -1,7 +1,9 @@
 package com.netease.nim.uikit.robot.parser.elements.base;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /**
  * Created by huangjun on 2017/6/22.
@@ -10,5 +12,10 @@ import org.json.JSONObject;
  */
 
 public abstract class Element {
-    public abstract void parse(JSONObject jsonObject) throws JSONException;
+    /**
+     * 解析当前节点
+     *
+     * @param parser 调用时位于当前节点的START_TAG，返回时位于对应的END_TAG
+     */
+    public abstract void parse(XmlPullParser parser) throws XmlPullParserException, IOException;
 }
@@ -1,39 +1,34 @@
 package com.netease.nim.uikit.robot.parser.elements.base;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Created by huangjun on 2017/6/22.
  * <p>
- * 支持嵌套的容器
+ * 支持嵌套的容器，子元素只在解析时添加，对外只读
  */
 
 public abstract class ElementGroup<T extends Element> extends Element {
 
-    private List<T> elements;
+    private final List<T> elements = new ArrayList<>();
 
-    protected void addElement(T e) {
-        if (elements == null) {
-            elements = new ArrayList<>();
-        }
+    private final List<T> readOnlyElements = Collections.unmodifiableList(elements);
 
+    protected void addElement(T e) {
         if (e != null) {
             elements.add(e);
         }
     }
 
     protected void addElements(List<T> es) {
-        if (elements == null) {
-            elements = new ArrayList<>();
-        }
-
         if (es != null) {
             elements.addAll(es);
         }
     }
 
     public List<T> getElements() {
-        return elements;
+        return readOnlyElements;
     }
 }
@@ -4,8 +4,10 @@ import com.netease.nim.uikit.robot.parser.elements.base.Element;
 import com.netease.nim.uikit.robot.parser.elements.base.ElementTag;
 import com.netease.nim.uikit.robot.parser.elements.helper.ElementParseHelper;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /**
  * Created by huangjun on 2017/6/22.
@@ -22,25 +24,23 @@ public class ImageElement extends Element {
     private boolean heightUsePercent = true; // 默认用百分比
 
     @Override
-    public void parse(JSONObject jsonObject) throws JSONException {
-        name = jsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_NAME);
-        url = jsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_URL);
+    public void parse(XmlPullParser parser) throws XmlPullParserException, IOException {
+        name = ElementParseHelper.getAttribute(parser, ElementTag.ELEMENT_ATTRIBUTE_NAME);
+        url = ElementParseHelper.getAttribute(parser, ElementTag.ELEMENT_ATTRIBUTE_URL);
 
-        if (jsonObject.has(ElementTag.ELEMENT_ATTRIBUTE_WIDTH)) {
-            ElementParseHelper.Value v = ElementParseHelper.getValue(jsonObject.getString(ElementTag.ELEMENT_ATTRIBUTE_WIDTH));
-            if (v != null) {
-                width = v.getValue();
-                widthUsePercent = v.isPercent();
-            }
+        ElementParseHelper.Value v = ElementParseHelper.getValue(parser.getAttributeValue(null, ElementTag.ELEMENT_ATTRIBUTE_WIDTH));
+        if (v != null) {
+            width = v.getValue();
+            widthUsePercent = v.isPercent();
         }
 
-        if (jsonObject.has(ElementTag.ELEMENT_ATTRIBUTE_HEIGHT)) {
-            ElementParseHelper.Value v = ElementParseHelper.getValue(jsonObject.getString(ElementTag.ELEMENT_ATTRIBUTE_HEIGHT));
-            if (v != null) {
-                height = v.getValue();
-                heightUsePercent = v.isPercent();
-            }
+        v = ElementParseHelper.getValue(parser.getAttributeValue(null, ElementTag.ELEMENT_ATTRIBUTE_HEIGHT));
+        if (v != null) {
+            height = v.getValue();
+            heightUsePercent = v.isPercent();
         }
+
+        ElementParseHelper.skip(parser);
     }
 
     public String getName() {
@@ -4,8 +4,10 @@ import com.netease.nim.uikit.robot.parser.elements.base.Element;
 import com.netease.nim.uikit.robot.parser.elements.base.ElementTag;
 import com.netease.nim.uikit.robot.parser.elements.helper.ElementParseHelper;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /**
  * Created by huangjun on 2017/6/22.
@@ -21,21 +23,19 @@ public class TextElement extends Element {
     private String color;
 
     @Override
-    public void parse(JSONObject jsonObject) throws JSONException {
-        name = jsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_NAME);
-        content = jsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_CONTENT);
-
-        if (jsonObject.has(ElementTag.ELEMENT_ATTRIBUTE_WIDTH)) {
-            ElementParseHelper.Value v = ElementParseHelper.getValue(jsonObject.getString(ElementTag.ELEMENT_ATTRIBUTE_WIDTH));
-            if (v != null) {
-                width = v.getValue();
-                widthUsePercent = v.isPercent();
-            }
-        }
+    public void parse(XmlPullParser parser) throws XmlPullParserException, IOException {
+        name = ElementParseHelper.getAttribute(parser, ElementTag.ELEMENT_ATTRIBUTE_NAME);
 
-        if (jsonObject.has(ElementTag.ELEMENT_ATTRIBUTE_COLOR)) {
-            color = jsonObject.getString(ElementTag.ELEMENT_ATTRIBUTE_COLOR);
+        ElementParseHelper.Value v = ElementParseHelper.getValue(parser.getAttributeValue(null, ElementTag.ELEMENT_ATTRIBUTE_WIDTH));
+        if (v != null) {
+            width = v.getValue();
+            widthUsePercent = v.isPercent();
         }
+
+        color = parser.getAttributeValue(null, ElementTag.ELEMENT_ATTRIBUTE_COLOR);
+
+        // 文本内容最后读取，读取后解析器位于END_TAG，不能再取属性
+        content = ElementParseHelper.readText(parser);
     }
 
     public String getName() {
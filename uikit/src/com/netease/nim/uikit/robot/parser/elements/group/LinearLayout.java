@@ -4,8 +4,10 @@ import com.netease.nim.uikit.robot.parser.elements.base.Element;
 import com.netease.nim.uikit.robot.parser.elements.base.ElementGroup;
 import com.netease.nim.uikit.robot.parser.elements.helper.ElementParseHelper;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /**
  * Created by huangjun on 2017/6/22.
@@ -18,7 +20,7 @@ import org.json.JSONObject;
 public class LinearLayout extends ElementGroup<Element> {
 
     @Override
-    public void parse(JSONObject rootJsonObject) throws JSONException {
-        addElements(ElementParseHelper.getElements(rootJsonObject));
+    public void parse(XmlPullParser parser) throws XmlPullParserException, IOException {
+        addElements(ElementParseHelper.getElements(parser));
     }
 }
\ No newline at end of file
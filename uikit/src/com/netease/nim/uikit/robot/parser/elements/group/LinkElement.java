@@ -5,8 +5,10 @@ import com.netease.nim.uikit.robot.parser.elements.base.ElementGroup;
 import com.netease.nim.uikit.robot.parser.elements.base.ElementTag;
 import com.netease.nim.uikit.robot.parser.elements.helper.ElementParseHelper;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /**
  * Created by huangjun on 2017/6/22.
@@ -29,12 +31,12 @@ public class LinkElement extends ElementGroup<Element> {
     public static final String TYPE_URL = "url";
 
     @Override
-    public void parse(JSONObject rootJsonObject) throws JSONException {
-        type = rootJsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_TYPE);
-        style = rootJsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_STYLE);
-        target = rootJsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_TARGET);
-        params = rootJsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_PARAMS);
-        addElements(ElementParseHelper.getElements(rootJsonObject));
+    public void parse(XmlPullParser parser) throws XmlPullParserException, IOException {
+        type = ElementParseHelper.getAttribute(parser, ElementTag.ELEMENT_ATTRIBUTE_TYPE);
+        style = ElementParseHelper.getAttribute(parser, ElementTag.ELEMENT_ATTRIBUTE_STYLE);
+        target = ElementParseHelper.getAttribute(parser, ElementTag.ELEMENT_ATTRIBUTE_TARGET);
+        params = ElementParseHelper.getAttribute(parser, ElementTag.ELEMENT_ATTRIBUTE_PARAMS);
+        addElements(ElementParseHelper.getElements(parser));
     }
 
     public String getType() {
@@ -2,15 +2,20 @@ package com.netease.nim.uikit.robot.parser.elements.group;
 
 import com.netease.nim.uikit.robot.parser.elements.base.ElementGroup;
 import com.netease.nim.uikit.robot.parser.elements.base.ElementTag;
+import com.netease.nim.uikit.robot.parser.elements.helper.ElementParseHelper;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import org.json.XML;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
 
 /**
  * 根元素，解析器入口
  * <p>
+ * 用pull解析器一次遍历xml直接生成元素，元素按文档顺序排列；解析完成后不再修改，可以缓存共享
+ * <p>
  * Created by huangjun on 2017/6/22.
  */
 
@@ -20,47 +25,47 @@ public class TemplateRoot extends ElementGroup<LinearLayout> {
     private String globalParams; // 全局变量
     private String version; // 协议版本号
 
-    // log
-    private String jsonString; // xml2JsonString
+    private static XmlPullParserFactory parserFactory;
 
     public TemplateRoot(String xml) {
         try {
-            if (!xml.contains(ElementTag.XML_HEADER_PREFIX)) {
-                xml = ElementTag.XML_HEADER + xml;
+            XmlPullParser parser = newPullParser();
+            parser.setInput(new StringReader(xml));
+            int event;
+            while ((event = parser.next()) != XmlPullParser.END_DOCUMENT) {
+                if (event == XmlPullParser.START_TAG && ElementTag.ELEMENT_LABEL_TEMPLATE.equals(parser.getName())) {
+                    parse(parser);
+                    break;
+                }
             }
-            JSONObject rootJsonObject = XML.toJSONObject(xml);
-            parse(rootJsonObject);
-            jsonString = rootJsonObject.toString();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
     @Override
-    public void parse(JSONObject rootJsonObject) throws JSONException {
-        JSONObject jsonObject = rootJsonObject.getJSONObject(ElementTag.ELEMENT_LABEL_TEMPLATE);
+    public void parse(XmlPullParser parser) throws XmlPullParserException, IOException {
+        templateId = ElementParseHelper.getAttribute(parser, ElementTag.ELEMENT_ATTRIBUTE_ID);
+        globalParams = ElementParseHelper.getAttribute(parser, ElementTag.ELEMENT_ATTRIBUTE_PARAMS);
+        version = ElementParseHelper.getAttribute(parser, ElementTag.ELEMENT_ATTRIBUTE_VERSION);
 
-        templateId = jsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_ID);
-        globalParams = jsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_PARAMS);
-        version = jsonObject.optString(ElementTag.ELEMENT_ATTRIBUTE_VERSION);
+        int depth = parser.getDepth();
+        int event;
+        while ((event = parser.next()) != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                break;
+            }
 
-        if (jsonObject.has(ElementTag.ELEMENT_LABEL_LINEAR_LAYOUT)) {
+            if (event != XmlPullParser.START_TAG) {
+                continue;
+            }
 
-            JSONObject object = jsonObject.optJSONObject(ElementTag.ELEMENT_LABEL_LINEAR_LAYOUT);
-            if (object != null) {
+            if (ElementTag.ELEMENT_LABEL_LINEAR_LAYOUT.equals(parser.getName())) {
                 LinearLayout linearLayout = new LinearLayout();
-                linearLayout.parse(object);
+                linearLayout.parse(parser);
                 addElement(linearLayout);
             } else {
-                JSONArray array = jsonObject.optJSONArray(ElementTag.ELEMENT_LABEL_LINEAR_LAYOUT);
-                if (array != null && array.length() > 0) {
-                    for (int i = 0; i < array.length(); i++) {
-                        JSONObject obj = array.getJSONObject(i);
-                        LinearLayout linearLayout = new LinearLayout();
-                        linearLayout.parse(obj);
-                        addElement(linearLayout);
-                    }
-                }
+                ElementParseHelper.skip(parser);
             }
         }
     }
@@ -79,6 +84,14 @@ public class TemplateRoot extends ElementGroup<LinearLayout> {
 
     @Override
     public String toString() {
-        return jsonString;
+        return "TemplateRoot{id=" + templateId + ", version=" + version + ", layouts=" + getElements().size() + "}";
+    }
+
+    private static synchronized XmlPullParser newPullParser() throws XmlPullParserException {
+        if (parserFactory == null) {
+            parserFactory = XmlPullParserFactory.newInstance();
+        }
+
+        return parserFactory.newPullParser();
     }
 }
@@ -8,12 +8,11 @@ import com.netease.nim.uikit.robot.parser.elements.element.ImageElement;
 import com.netease.nim.uikit.robot.parser.elements.element.TextElement;
 import com.netease.nim.uikit.robot.parser.elements.group.LinkElement;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -69,60 +68,90 @@ public class ElementParseHelper {
         return result;
     }
 
-    public static List<Element> getElements(JSONObject rootJsonObject) throws JSONException {
+    /**
+     * 读取属性，不存在时返回空字符串
+     */
+    public static String getAttribute(XmlPullParser parser, String name) {
+        String value = parser.getAttributeValue(null, name);
+        return value == null ? "" : value;
+    }
+
+    /**
+     * 读取当前节点下的文本（不含子节点的文本），去掉首尾空白。
+     * 调用时位于当前节点的START_TAG，返回时位于对应的END_TAG
+     */
+    public static String readText(XmlPullParser parser) throws XmlPullParserException, IOException {
+        StringBuilder sb = new StringBuilder();
+        int depth = parser.getDepth();
+        int event;
+        while ((event = parser.next()) != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                break;
+            }
+
+            if (event == XmlPullParser.TEXT && parser.getDepth() == depth) {
+                sb.append(parser.getText());
+            }
+        }
+
+        return sb.toString().trim();
+    }
+
+    /**
+     * 按文档顺序解析当前节点下的子元素，不支持的节点跳过。
+     * 调用时位于当前节点的START_TAG，返回时位于对应的END_TAG
+     */
+    public static List<Element> getElements(XmlPullParser parser) throws XmlPullParserException, IOException {
         List<Element> elements = new ArrayList<>();
 
-        Iterator<String> keys = rootJsonObject.keys();
-        String tag;
-        while (keys.hasNext()) {
-            tag = keys.next();
-            if (!canParseElement(tag)) {
+        int depth = parser.getDepth();
+        int event;
+        while ((event = parser.next()) != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                break;
+            }
+
+            if (event != XmlPullParser.START_TAG) {
                 continue;
             }
 
             // parse recursive
-            Object o = rootJsonObject.get(tag);
-            if (o instanceof JSONObject) {
-                parseElement((JSONObject) o, tag, elements);
-            } else if (o instanceof JSONArray) {
-                parseElements((JSONArray) o, tag, elements); // 可能一次性把所有text拿出来了
+            Element e = createElement(parser.getName());
+            if (e != null) {
+                e.parse(parser);
+                elements.add(e);
+            } else {
+                skip(parser);
             }
         }
 
         return elements;
     }
 
-    private static void parseElements(final JSONArray array, final String tag, final List<Element> elements) throws JSONException {
-        for (int i = 0; i < array.length(); i++) {
-            parseElement(array.getJSONObject(i), tag, elements);
+    /**
+     * 跳过当前节点及其子节点。
+     * 调用时位于当前节点的START_TAG，返回时位于对应的END_TAG
+     */
+    public static void skip(XmlPullParser parser) throws XmlPullParserException, IOException {
+        int depth = parser.getDepth();
+        int event;
+        while ((event = parser.next()) != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                break;
+            }
         }
     }
 
-    private static void parseElement(final JSONObject obj, final String tag, final List<Element> elements) throws JSONException {
-        Element e = null;
+    private static Element createElement(final String tag) {
         switch (tag) {
             case ElementTag.ELEMENT_LABEL_TEXT:
-                e = new TextElement();
-                break;
+                return new TextElement();
             case ElementTag.ELEMENT_LABEL_IMAGE:
-                e = new ImageElement();
-                break;
+                return new ImageElement();
             case ElementTag.ELEMENT_LABEL_LINK:
-                e = new LinkElement();
-                break;
+                return new LinkElement();
             default:
-                break;
-        }
-
-        if (e != null && obj != null) {
-            e.parse(obj);
-            elements.add(e);
+                return null;
         }
     }
-
-    private static boolean canParseElement(final String tag) {
-        return tag.equals(ElementTag.ELEMENT_LABEL_TEXT) ||
-                tag.equals(ElementTag.ELEMENT_LABEL_IMAGE) ||
-                tag.equals(ElementTag.ELEMENT_LABEL_LINK);
-    }
 }
@@ -163,6 +163,8 @@ public class TeamMessageActivity extends BaseMessageActivity {
             for (Team t : teams) {
                 if (t.getId().equals(team.getId())) {
                     updateTeamInfo(t);
+                    // 群通知消息的文案依赖群类型
+                    fragment.refreshMessageList();
                     break;
                 }
             }
@@ -102,6 +102,19 @@ public class TeamNotificationHelper {
         return TeamDataCache.getInstance().getTeamMemberDisplayNameYou(teamId.get(), account);
     }
 
+    /**
+     * 按群类型选择文案。群资料不在缓存中时（冷启动缓存未构建完成、已退出的群）使用不区分类型的文案，
+     * 群资料加载后由群资料变更通知刷新界面
+     */
+    private static String teamTypeText(String advanced, String normal, String unknown) {
+        Team team = TeamDataCache.getInstance().getTeamById(teamId.get());
+        if (team == null) {
+            return unknown;
+        }
+
+        return team.getType() == TeamTypeEnum.Advanced ? advanced : normal;
+    }
+
     private static String buildMemberListString(List<String> members, String fromAccount) {
         StringBuilder sb = new StringBuilder();
         for (String account : members) {
@@ -123,12 +136,7 @@ public class TeamNotificationHelper {
         sb.append(selfName);
         sb.append("邀请 ");
         sb.append(buildMemberListString(a.getTargets(), fromAccount));
-        Team team = TeamDataCache.getInstance().getTeamById(teamId.get());
-        if (team.getType() == TeamTypeEnum.Advanced) {
-            sb.append(" 加入群");
-        } else {
-            sb.append(" 加入讨论组");
-        }
+        sb.append(teamTypeText(" 加入群", " 加入讨论组", " 加入"));
 
         return sb.toString();
     }
@@ -136,26 +144,14 @@ public class TeamNotificationHelper {
     private static String buildKickMemberNotification(MemberChangeAttachment a) {
         StringBuilder sb = new StringBuilder();
         sb.append(buildMemberListString(a.getTargets(), null));
-        Team team = TeamDataCache.getInstance().getTeamById(teamId.get());
-        if (team.getType() == TeamTypeEnum.Advanced) {
-            sb.append(" 已被移出群");
-        } else {
-            sb.append(" 已被移出讨论组");
-        }
+        sb.append(teamTypeText(" 已被移出群", " 已被移出讨论组", " 已被移出"));
 
 
         return sb.toString();
     }
 
     private static String buildLeaveTeamNotification(String fromAccount) {
-        String tip;
-        Team team = TeamDataCache.getInstance().getTeamById(teamId.get());
-        if (team.getType() == TeamTypeEnum.Advanced) {
-            tip = " 离开了群";
-        } else {
-            tip = " 离开了讨论组";
-        }
-        return getTeamMemberDisplayName(fromAccount) + tip;
+        return getTeamMemberDisplayName(fromAccount) + teamTypeText(" 离开了群", " 离开了讨论组", " 离开了");
     }
 
     private static String buildDismissTeamNotification(String fromAccount) {
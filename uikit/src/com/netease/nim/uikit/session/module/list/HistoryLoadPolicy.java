@@ -0,0 +1,91 @@
+package com.netease.nim.uikit.session.module.list;
+
+/**
+ * 历史消息分页策略：
+ * 距离顶部还有一段距离时就预取上一页，页大小随向上滑动的速度增大，快速回翻时不再每页都等待；
+ * 会话很长时，滑回底部后移除顶部较远的消息，限制内存占用。
+ */
+public class HistoryLoadPolicy {
+
+    public static final int MIN_PAGE_SIZE = 20;
+
+    public static final int MAX_PAGE_SIZE = 100; // 单次查询上限
+
+    public static final int PREFETCH_DISTANCE = 10; // 距离顶部多少条开始预取
+
+    public static final int MAX_LOADED_COUNT = 600; // 超过后移除顶部的消息
+
+    public static final int KEEP_LOADED_COUNT = 300; // 移除后保留的消息数
+
+    private static final long LOOK_AHEAD = 1000; // ms，一页至少够滑动的时长
+
+    private static final long IDLE_RESET = 300; // ms，超过该时长没有滑动，速度归零
+
+    private static final float SMOOTHING = 0.2f;
+
+    private final MsgUpdateCoalescer.Clock clock;
+
+    private float velocity; // 向上滑动速度，条/秒
+
+    private int lastPosition = -1;
+
+    private long lastTime;
+
+    public HistoryLoadPolicy() {
+        this(MsgUpdateCoalescer.SYSTEM_CLOCK);
+    }
+
+    public HistoryLoadPolicy(MsgUpdateCoalescer.Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 列表滑动时调用
+     *
+     * @param firstVisiblePosition 第一个可见项的位置
+     */
+    public void onScrolled(int firstVisiblePosition) {
+        long now = clock.uptimeMillis();
+        if (lastPosition < 0 || now - lastTime > IDLE_RESET) {
+            velocity = 0;
+        } else if (now > lastTime) {
+            float instant = (lastPosition - firstVisiblePosition) * 1000f / (now - lastTime);
+            velocity += (Math.max(instant, 0) - velocity) * SMOOTHING;
+        }
+
+        lastPosition = firstVisiblePosition;
+        lastTime = now;
+    }
+
+    public void onScrollIdle() {
+        velocity = 0;
+        lastPosition = -1;
+    }
+
+    /**
+     * @return 下一页顶部加载的消息数
+     */
+    public int nextPageSize() {
+        if (lastPosition < 0 || clock.uptimeMillis() - lastTime > IDLE_RESET) {
+            return MIN_PAGE_SIZE;
+        }
+
+        int size = (int) (velocity * LOOK_AHEAD / 1000);
+        return Math.max(MIN_PAGE_SIZE, Math.min(MAX_PAGE_SIZE, size));
+    }
+
+    /**
+     * @param loadedCount       已加载的消息数
+     * @param firstVisibleIndex 第一个可见消息的位置
+     * @return 顶部可以移除的消息数，0表示不需要移除
+     */
+    public int trimCount(int loadedCount, int firstVisibleIndex) {
+        if (loadedCount <= MAX_LOADED_COUNT) {
+            return 0;
+        }
+
+        int count = loadedCount - KEEP_LOADED_COUNT;
+        // 移除的消息需离可见区域足够远，避免马上又触发预取
+        return firstVisibleIndex - count >= PREFETCH_DISTANCE * 2 ? count : 0;
+    }
+}
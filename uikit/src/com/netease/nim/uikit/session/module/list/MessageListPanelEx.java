@@ -93,6 +93,13 @@ public class MessageListPanelEx {
     private IncomingMsgPrompt incomingMsgPrompt;
     private Handler uiHandler;
 
+    // 进度、状态变化的刷新合并
+    private MsgUpdateCoalescer updateCoalescer;
+
+    // 历史消息加载
+    private MessageLoader messageLoader;
+    private HistoryLoadPolicy historyLoadPolicy = new HistoryLoadPolicy();
+
     // 仅显示消息记录，不接收和发送消息
     private boolean recordOnly;
     // 从服务器拉取消息记录
@@ -130,6 +137,9 @@ public class MessageListPanelEx {
 
     public void onDestroy() {
         registerObservers(false);
+        if (updateCoalescer != null) {
+            updateCoalescer.clear();
+        }
     }
 
     public boolean onBackPressed() {
@@ -155,6 +165,22 @@ public class MessageListPanelEx {
         initListView(anchor);
 
         this.uiHandler = new Handler();
+        this.updateCoalescer = new MsgUpdateCoalescer(uiHandler, new MsgUpdateCoalescer.Target() {
+            @Override
+            public int getItemIndex(String uuid) {
+                return adapter.getItemIndex(uuid);
+            }
+
+            @Override
+            public void applyProgress(String uuid, float progress) {
+                adapter.putProgress(uuid, progress);
+            }
+
+            @Override
+            public void notifyItemRangeChanged(int index, int count) {
+                adapter.notifyDataItemRangeChanged(index, count);
+            }
+        });
         if (!recordOnly) {
             incomingMsgPrompt = new IncomingMsgPrompt(container.activity, rootView, messageListView, adapter, uiHandler);
         }
@@ -167,7 +193,8 @@ public class MessageListPanelEx {
 
         // RecyclerView
         messageListView = (RecyclerView) rootView.findViewById(R.id.messageListView);
-        messageListView.setLayoutManager(new LinearLayoutManager(container.activity));
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(container.activity);
+        messageListView.setLayoutManager(layoutManager);
         messageListView.requestDisallowInterceptTouchEvent(true);
         messageListView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
@@ -175,8 +202,19 @@ public class MessageListPanelEx {
                 super.onScrollStateChanged(recyclerView, newState);
                 if (newState != RecyclerView.SCROLL_STATE_IDLE) {
                     container.proxy.shouldCollapseInputPanel();
+                } else {
+                    historyLoadPolicy.onScrollIdle();
+                    if (messageLoader != null) {
+                        messageLoader.trimLoadedMessages(layoutManager.findFirstVisibleItemPosition() - adapter.getHeaderLayoutCount());
+                    }
                 }
             }
+
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                super.onScrolled(recyclerView, dx, dy);
+                historyLoadPolicy.onScrolled(layoutManager.findFirstVisibleItemPosition());
+            }
         });
         messageListView.setOverScrollMode(View.OVER_SCROLL_NEVER);
 
@@ -184,6 +222,7 @@ public class MessageListPanelEx {
         items = new ArrayList<>();
         adapter = new MsgAdapter(messageListView, items);
         adapter.setFetchMoreView(new MsgListFetchLoadMoreView());
+        adapter.setAutoFetchMoreSize(HistoryLoadPolicy.PREFETCH_DISTANCE); // 接近顶部时预取
         adapter.setLoadMoreView(new MsgListFetchLoadMoreView());
         adapter.setEventListener(new MsgItemEventListener());
         initFetchLoadListener(anchor);
@@ -242,6 +281,7 @@ public class MessageListPanelEx {
 
     private void initFetchLoadListener(IMMessage anchor) {
         MessageLoader loader = new MessageLoader(anchor, remote);
+        messageLoader = loader;
 
         if (recordOnly && !remote) {
             // 双向Load
@@ -279,21 +319,16 @@ public class MessageListPanelEx {
 
     public void onIncomingMessage(List<IMMessage> messages) {
         boolean needScrollToBottom = isLastMessageVisible();
-        boolean needRefresh = false;
         List<IMMessage> addedListItems = new ArrayList<>(messages.size());
         for (IMMessage message : messages) {
             if (isMyMessage(message)) {
-                items.add(message);
                 addedListItems.add(message);
-                needRefresh = true;
             }
         }
-        if (needRefresh) {
-            sortMessages(items);
-            adapter.notifyDataSetChanged();
-        }
 
+        sortMessages(addedListItems);
         adapter.updateShowTimeItem(addedListItems, false, true);
+        mergeMessages(addedListItems);
 
         // incoming messages tip
         IMMessage lastMsg = messages.get(messages.size() - 1);
@@ -333,6 +368,60 @@ public class MessageListPanelEx {
         Collections.sort(list, comp);
     }
 
+    /**
+     * 将有序的新消息归并到有序的消息列表中，只通知插入的区间
+     */
+    private void mergeMessages(List<IMMessage> sorted) {
+        if (sorted.isEmpty()) {
+            return;
+        }
+
+        // 一般新消息都在末尾
+        if (items.isEmpty() || comp.compare(sorted.get(0), items.get(items.size() - 1)) >= 0) {
+            adapter.appendData(sorted);
+            return;
+        }
+
+        int from = 0;
+        int i = 0;
+        while (i < sorted.size()) {
+            int pos = upperBound(items, sorted.get(i), from);
+            if (pos == items.size()) {
+                adapter.appendData(new ArrayList<>(sorted.subList(i, sorted.size())));
+                break;
+            }
+
+            // 插入到同一位置的连续消息一起插入
+            int j = i + 1;
+            while (j < sorted.size() && comp.compare(sorted.get(j), items.get(pos)) < 0) {
+                j++;
+            }
+
+            adapter.addData(pos, new ArrayList<>(sorted.subList(i, j)));
+            from = pos + (j - i);
+            adapter.notifyDataItemChanged(from); // 插入位置之后的消息，上一条消息变了
+            i = j;
+        }
+    }
+
+    /**
+     * 第一个时间大于message的位置
+     */
+    private static int upperBound(List<IMMessage> list, IMMessage message, int from) {
+        int lo = from;
+        int hi = list.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comp.compare(list.get(mid), message) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
     private static Comparator<IMMessage> comp = new Comparator<IMMessage>() {
 
         @Override
@@ -436,18 +525,18 @@ public class MessageListPanelEx {
             msgList.add(message);
             adapter.updateShowTimeItem(msgList, false, true);
 
-            refreshViewHolderByIndex(index);
+            updateCoalescer.onChanged(item.getUuid());
         }
     }
 
     private void onAttachmentProgressChange(AttachmentProgress progress) {
-        int index = getItemIndex(progress.getUuid());
-        if (index >= 0 && index < items.size()) {
-            IMMessage item = items.get(index);
-            float value = (float) progress.getTransferred() / (float) progress.getTotal();
-            adapter.putProgress(item, value);
-            refreshViewHolderByIndex(index);
+        if (progress.getTotal() <= 0) {
+            return;
         }
+
+        // 不在列表中的消息，刷新时忽略
+        float value = (float) progress.getTransferred() / (float) progress.getTotal();
+        updateCoalescer.onProgress(progress.getUuid(), value);
     }
 
     public boolean isMyMessage(IMMessage message) {
@@ -456,32 +545,8 @@ public class MessageListPanelEx {
                 && message.getSessionId().equals(container.account);
     }
 
-    /**
-     * 刷新单条消息
-     */
-    private void refreshViewHolderByIndex(final int index) {
-        container.activity.runOnUiThread(new Runnable() {
-
-            @Override
-            public void run() {
-                if (index < 0) {
-                    return;
-                }
-
-                adapter.notifyDataItemChanged(index);
-            }
-        });
-    }
-
     private int getItemIndex(String uuid) {
-        for (int i = 0; i < items.size(); i++) {
-            IMMessage message = items.get(i);
-            if (TextUtils.equals(message.getUuid(), uuid)) {
-                return i;
-            }
-        }
-
-        return -1;
+        return adapter.getItemIndex(uuid);
     }
 
     public void setChattingBackground(String uriString, int color) {
@@ -522,6 +587,10 @@ public class MessageListPanelEx {
 
         private boolean firstLoad = true;
 
+        private int pendingRequests = 0; // 进行中的查询数
+
+        private int fetchCount = LOAD_MESSAGE_COUNT; // 本次顶部加载的消息数
+
         public MessageLoader(IMMessage anchor, boolean remote) {
             this.anchor = anchor;
             this.remote = remote;
@@ -539,6 +608,7 @@ public class MessageListPanelEx {
         private RequestCallback<List<IMMessage>> callback = new RequestCallbackWrapper<List<IMMessage>>() {
             @Override
             public void onResult(int code, List<IMMessage> messages, Throwable exception) {
+                pendingRequests--;
                 if (code != ResponseCode.RES_SUCCESS || exception != null) {
                     if (direction == QueryDirectionEnum.QUERY_OLD) {
                         adapter.fetchMoreFailed();
@@ -558,10 +628,12 @@ public class MessageListPanelEx {
         private void loadAnchorContext() {
             // query new, auto load old
             direction = QueryDirectionEnum.QUERY_NEW;
+            pendingRequests++;
             NIMClient.getService(MsgService.class).queryMessageListEx(anchor(), direction, LOAD_MESSAGE_COUNT, true)
                     .setCallback(new RequestCallbackWrapper<List<IMMessage>>() {
                         @Override
                         public void onResult(int code, List<IMMessage> messages, Throwable exception) {
+                            pendingRequests--;
                             if (code != ResponseCode.RES_SUCCESS || exception != null) {
                                 return;
                             }
@@ -573,13 +645,20 @@ public class MessageListPanelEx {
 
         private void loadFromLocal(QueryDirectionEnum direction) {
             this.direction = direction;
-            NIMClient.getService(MsgService.class).queryMessageListEx(anchor(), direction, LOAD_MESSAGE_COUNT, true)
+            pendingRequests++;
+            int count = LOAD_MESSAGE_COUNT;
+            if (direction == QueryDirectionEnum.QUERY_OLD) {
+                count = fetchCount = firstLoad ? LOAD_MESSAGE_COUNT : historyLoadPolicy.nextPageSize();
+            }
+            NIMClient.getService(MsgService.class).queryMessageListEx(anchor(), direction, count, true)
                     .setCallback(callback);
         }
 
         private void loadFromRemote() {
             this.direction = QueryDirectionEnum.QUERY_OLD;
-            NIMClient.getService(MsgService.class).pullMessageHistory(anchor(), LOAD_MESSAGE_COUNT, true)
+            pendingRequests++;
+            fetchCount = firstLoad ? LOAD_MESSAGE_COUNT : historyLoadPolicy.nextPageSize();
+            NIMClient.getService(MsgService.class).pullMessageHistory(anchor(), fetchCount, true)
                     .setCallback(callback);
         }
 
@@ -597,7 +676,7 @@ public class MessageListPanelEx {
                 return;
             }
 
-            boolean noMoreMessage = messages.size() < LOAD_MESSAGE_COUNT;
+            boolean noMoreMessage = messages.size() < (direction == QueryDirectionEnum.QUERY_OLD ? fetchCount : LOAD_MESSAGE_COUNT);
 
             if (remote) {
                 Collections.reverse(messages);
@@ -606,13 +685,9 @@ public class MessageListPanelEx {
             // 在第一次加载的过程中又收到了新消息，做一下去重
             if (firstLoad && items.size() > 0) {
                 for (IMMessage message : messages) {
-                    int removeIndex = 0;
-                    for (IMMessage item : items) {
-                        if (item.isTheSame(message)) {
-                            adapter.remove(removeIndex);
-                            break;
-                        }
-                        removeIndex++;
+                    int removeIndex = getItemIndex(message.getUuid());
+                    if (removeIndex >= 0) {
+                        adapter.remove(removeIndex);
                     }
                 }
             }
@@ -688,6 +763,20 @@ public class MessageListPanelEx {
             firstLoad = false;
         }
 
+        /**
+         * 滑动停止时，会话过长则移除顶部远离可见区域的消息，需要时再从顶部加载回来
+         */
+        void trimLoadedMessages(int firstVisibleIndex) {
+            if (firstLoad || pendingRequests > 0) {
+                return;
+            }
+
+            int count = historyLoadPolicy.trimCount(items.size(), firstVisibleIndex);
+            if (count > 0) {
+                adapter.removeFrontItems(count);
+            }
+        }
+
         @Override
         public void onFetchMoreRequested() {
             // 顶部加载历史数据
@@ -1118,9 +1207,14 @@ public class MessageListPanelEx {
      * @param messages
      */
     public void updateReceipt(final List<IMMessage> messages) {
+        updateReceipt(messages, null);
+    }
+
+    private void updateReceipt(final List<IMMessage> messages, String excludeUuid) {
         for (int i = messages.size() - 1; i >= 0; i--) {
-            if (receiveReceiptCheck(messages.get(i))) {
-                adapter.setUuid(messages.get(i).getUuid());
+            IMMessage message = messages.get(i);
+            if (receiveReceiptCheck(message) && !message.getUuid().equals(excludeUuid)) {
+                adapter.setUuid(message.getUuid());
                 break;
             }
         }
@@ -1204,14 +1298,7 @@ public class MessageListPanelEx {
     // 删除消息
     private void deleteItem(IMMessage messageItem, boolean isRelocateTime) {
         NIMClient.getService(MsgService.class).deleteChattingHistory(messageItem);
-        List<IMMessage> messages = new ArrayList<>();
-        for (IMMessage message : items) {
-            if (message.getUuid().equals(messageItem.getUuid())) {
-                continue;
-            }
-            messages.add(message);
-        }
-        updateReceipt(messages);
+        updateReceipt(items, messageItem.getUuid()); // 先不计被删除的消息，再刷新列表
         adapter.deleteItem(messageItem, isRelocateTime);
     }
 
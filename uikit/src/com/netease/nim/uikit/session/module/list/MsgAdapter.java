@@ -68,15 +68,8 @@ public class MsgAdapter extends BaseMultiItemFetchLoadAdapter<IMMessage, BaseVie
             return;
         }
 
-        int index = 0;
-        for (IMMessage item : getData()) {
-            if (item.isTheSame(message)) {
-                break;
-            }
-            ++index;
-        }
-
-        if (index < getDataSize()) {
+        int index = getItemIndex(message.getUuid());
+        if (index >= 0) {
             remove(index);
             if (isRelocateTime) {
                 relocateShowTimeItemAfterDelete(message, index);
@@ -85,13 +78,41 @@ public class MsgAdapter extends BaseMultiItemFetchLoadAdapter<IMMessage, BaseVie
         }
     }
 
+    /**
+     * 移除顶部的消息以释放内存，移除的消息可以再从顶部加载回来
+     */
+    public void removeFrontItems(int count) {
+        count = Math.min(count, getDataSize());
+        if (count <= 0) {
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            String uuid = getItem(i).getUuid();
+            timedItems.remove(uuid);
+            progresses.remove(uuid);
+        }
+
+        removeFrontData(count);
+
+        // 新的第一条消息需要显示时间
+        if (getDataSize() > 0) {
+            setShowTimeFlag(getItem(0), null);
+            notifyDataItemChanged(0);
+        }
+    }
+
     public float getProgress(IMMessage message) {
         Float progress = progresses.get(message.getUuid());
         return progress == null ? 0 : progress;
     }
 
     public void putProgress(IMMessage message, float progress) {
-        progresses.put(message.getUuid(), progress);
+        putProgress(message.getUuid(), progress);
+    }
+
+    public void putProgress(String uuid, float progress) {
+        progresses.put(uuid, progress);
     }
 
     /**
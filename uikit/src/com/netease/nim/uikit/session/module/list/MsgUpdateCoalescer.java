@@ -0,0 +1,184 @@
+package com.netease.nim.uikit.session.module.list;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 消息列表刷新合并：附件进度、消息状态变化不再逐条刷新，
+ * 每条消息只保留最新的进度，变化小于可见精度的进度丢弃，每帧最多刷新一次，相邻的消息合并为区间刷新。
+ */
+public class MsgUpdateCoalescer {
+
+    /**
+     * 时钟，便于测试时替换
+     */
+    public interface Clock {
+        long uptimeMillis();
+    }
+
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long uptimeMillis() {
+            return SystemClock.uptimeMillis();
+        }
+    };
+
+    /**
+     * 刷新目标（消息列表）
+     */
+    public interface Target {
+        /**
+         * @return 消息位置，不存在返回-1
+         */
+        int getItemIndex(String uuid);
+
+        void applyProgress(String uuid, float progress);
+
+        void notifyItemRangeChanged(int index, int count);
+    }
+
+    public static final long FRAME_INTERVAL = 16; // ms
+
+    private static final float MIN_PROGRESS_DELTA = 0.01f; // 进度显示精度为1%
+
+    private final Handler handler;
+
+    private final Clock clock;
+
+    private final Target target;
+
+    private final Map<String, Float> pendingProgress = new LinkedHashMap<>();
+
+    private final Set<String> pendingChanged = new LinkedHashSet<>();
+
+    private final Map<String, Float> shownProgress = new HashMap<>(); // 上次刷新的进度
+
+    private long lastFlushTime = -FRAME_INTERVAL;
+
+    private boolean scheduled;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public MsgUpdateCoalescer(Handler handler, Target target) {
+        this(handler, SYSTEM_CLOCK, target);
+    }
+
+    public MsgUpdateCoalescer(Handler handler, Clock clock, Target target) {
+        this.handler = handler;
+        this.clock = clock;
+        this.target = target;
+    }
+
+    /**
+     * 附件传输进度
+     *
+     * @param progress [0, 1]
+     */
+    public void onProgress(String uuid, float progress) {
+        Float shown = shownProgress.get(uuid);
+        if (shown != null && progress < 1 && Math.abs(progress - shown) < MIN_PROGRESS_DELTA) {
+            pendingProgress.remove(uuid); // 回到已显示的进度附近，不需要再刷新
+            return;
+        }
+
+        pendingProgress.put(uuid, progress);
+        schedule();
+    }
+
+    /**
+     * 消息状态等数据已变化，需要刷新
+     */
+    public void onChanged(String uuid) {
+        pendingChanged.add(uuid);
+        schedule();
+    }
+
+    /**
+     * 刷新等待中的更新（在Handler线程调用）
+     */
+    public void flush() {
+        scheduled = false;
+        handler.removeCallbacks(flushRunnable);
+        lastFlushTime = clock.uptimeMillis();
+
+        if (pendingProgress.isEmpty() && pendingChanged.isEmpty()) {
+            return;
+        }
+
+        int[] indexes = new int[pendingProgress.size() + pendingChanged.size()];
+        int count = 0;
+        for (Map.Entry<String, Float> e : pendingProgress.entrySet()) {
+            String uuid = e.getKey();
+            float progress = e.getValue();
+            int index = target.getItemIndex(uuid);
+            if (index < 0 || progress >= 1) {
+                shownProgress.remove(uuid);
+            } else {
+                shownProgress.put(uuid, progress);
+            }
+
+            if (index >= 0) {
+                target.applyProgress(uuid, progress);
+                if (!pendingChanged.contains(uuid)) {
+                    indexes[count++] = index;
+                }
+            }
+        }
+        pendingProgress.clear();
+
+        for (String uuid : pendingChanged) {
+            int index = target.getItemIndex(uuid);
+            if (index >= 0) {
+                indexes[count++] = index;
+            }
+        }
+        pendingChanged.clear();
+
+        // 相邻位置合并为区间
+        Arrays.sort(indexes, 0, count);
+        int i = 0;
+        while (i < count) {
+            int start = indexes[i];
+            int end = start;
+            while (++i < count && indexes[i] <= end + 1) {
+                end = indexes[i];
+            }
+            target.notifyItemRangeChanged(start, end - start + 1);
+        }
+    }
+
+    public void clear() {
+        scheduled = false;
+        handler.removeCallbacks(flushRunnable);
+        pendingProgress.clear();
+        pendingChanged.clear();
+        shownProgress.clear();
+    }
+
+    private void schedule() {
+        if (scheduled) {
+            return;
+        }
+
+        scheduled = true;
+        // 距上次刷新不足一帧，延后到下一帧
+        long delay = lastFlushTime + FRAME_INTERVAL - clock.uptimeMillis();
+        if (delay > 0) {
+            handler.postDelayed(flushRunnable, delay);
+        } else {
+            handler.post(flushRunnable);
+        }
+    }
+}
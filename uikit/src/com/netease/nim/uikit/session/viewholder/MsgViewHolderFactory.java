@@ -11,17 +11,23 @@ import com.netease.nimlib.sdk.msg.model.IMMessage;
 import com.netease.nimlib.sdk.robot.model.RobotAttachment;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 消息项展示ViewHolder工厂类。
  */
 public class MsgViewHolderFactory {
 
-    private static HashMap<Class<? extends MsgAttachment>, Class<? extends MsgViewHolderBase>> viewHolders = new HashMap<>();
+    private static Map<Class<? extends MsgAttachment>, Class<? extends MsgViewHolderBase>> viewHolders = new ConcurrentHashMap<>();
 
-    private static Class<? extends MsgViewHolderBase> tipMsgViewHolder;
+    private static volatile Class<? extends MsgViewHolderBase> tipMsgViewHolder;
+
+    // 解析结果缓存，注册时清空：附件具体类型->ViewHolder，无附件的消息类型->ViewHolder
+    private static Map<Class<?>, Class<? extends MsgViewHolderBase>> resolvedByAttachment = new ConcurrentHashMap<>();
+
+    private static Map<MsgTypeEnum, Class<? extends MsgViewHolderBase>> resolvedByMsgType = new ConcurrentHashMap<>();
 
     static {
         // built in
@@ -35,13 +41,38 @@ public class MsgViewHolderFactory {
 
     public static void register(Class<? extends MsgAttachment> attach, Class<? extends MsgViewHolderBase> viewHolder) {
         viewHolders.put(attach, viewHolder);
+        resolvedByAttachment.clear();
     }
 
     public static void registerTipMsgViewHolder(Class<? extends MsgViewHolderBase> viewHolder) {
         tipMsgViewHolder = viewHolder;
+        resolvedByMsgType.clear();
     }
 
     public static Class<? extends MsgViewHolderBase> getViewHolderByType(IMMessage message) {
+        MsgTypeEnum type = message.getMsgType();
+        MsgAttachment attachment = message.getAttachment();
+        Class<? extends MsgViewHolderBase> viewHolder;
+        if (type == null) {
+            viewHolder = resolve(message);
+        } else if (type == MsgTypeEnum.text || type == MsgTypeEnum.tip || attachment == null) {
+            viewHolder = resolvedByMsgType.get(type);
+            if (viewHolder == null) {
+                viewHolder = resolve(message);
+                resolvedByMsgType.put(type, viewHolder);
+            }
+        } else {
+            viewHolder = resolvedByAttachment.get(attachment.getClass());
+            if (viewHolder == null) {
+                viewHolder = resolve(message);
+                resolvedByAttachment.put(attachment.getClass(), viewHolder);
+            }
+        }
+
+        return viewHolder;
+    }
+
+    private static Class<? extends MsgViewHolderBase> resolve(IMMessage message) {
         if (message.getMsgType() == MsgTypeEnum.text) {
             return MsgViewHolderText.class;
         } else if (message.getMsgType() == MsgTypeEnum.tip) {
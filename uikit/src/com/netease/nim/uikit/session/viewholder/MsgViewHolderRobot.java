@@ -4,6 +4,7 @@ import android.view.View;
 import android.widget.TextView;
 
 import com.netease.nim.uikit.R;
+import com.netease.nim.uikit.common.framework.ParseCache;
 import com.netease.nim.uikit.common.ui.recyclerview.adapter.BaseMultiItemFetchLoadAdapter;
 import com.netease.nim.uikit.common.ui.recyclerview.holder.BaseViewHolder;
 import com.netease.nim.uikit.robot.model.RobotResponseContent;
@@ -19,6 +20,19 @@ import java.util.Set;
 
 public class MsgViewHolderRobot extends MsgViewHolderText {
 
+    private static final int MAX_CACHED_RESPONSE = 200;
+
+    /**
+     * 机器人下行消息解析缓存，滑动时重复绑定不再重复解析json
+     */
+    private static final ParseCache<RobotResponseContent> responseCache = new ParseCache<>(MAX_CACHED_RESPONSE,
+            new ParseCache.Parser<RobotResponseContent>() {
+                @Override
+                public RobotResponseContent parse(String content) {
+                    return new RobotResponseContent(content);
+                }
+            });
+
     private android.widget.LinearLayout containerIn;
 
     private RobotContentLinearLayout robotContent;
@@ -67,7 +81,8 @@ public class MsgViewHolderRobot extends MsgViewHolderText {
             } else {
                 holderFooterButton.setVisibility(View.GONE);
             }
-            robotContent.bindContentView(this, new RobotResponseContent(attachment.getResponse()));
+            RobotResponseContent content = responseCache.get(message.getUuid(), attachment.getResponse());
+            robotContent.bindContentView(this, content != null ? content : new RobotResponseContent(null));
         } else {
             // 上行
             containerIn.setVisibility(View.VISIBLE);
@@ -90,4 +105,11 @@ public class MsgViewHolderRobot extends MsgViewHolderText {
     public void addOnClickListener(int id) {
         onClickIds.add(id);
     }
+
+    /**
+     * 替换机器人下行消息的解析器
+     */
+    public static void setResponseParser(ParseCache.Parser<RobotResponseContent> parser) {
+        responseCache.setParser(parser);
+    }
 }
@@ -8,6 +8,7 @@ import android.view.ViewGroup;
 import android.widget.LinearLayout;
 
 import com.netease.nim.uikit.R;
+import com.netease.nim.uikit.common.framework.ParseCache;
 import com.netease.nim.uikit.robot.model.RobotBotContent;
 import com.netease.nim.uikit.robot.model.RobotResponseContent;
 import com.netease.nim.uikit.robot.parser.elements.base.Element;
@@ -33,6 +34,19 @@ public class RobotContentLinearLayout extends LinearLayout {
     private static final int MODE_ROBOT_CONTENT = 0;
     private static final int MODE_LINK_ELEMENT = 1;
 
+    private static final int MAX_CACHED_TEMPLATE = 100;
+
+    /**
+     * 已解析的模板，模板解析后不再修改，相同内容的模板只解析一次
+     */
+    private static final ParseCache<TemplateRoot> templateCache = new ParseCache<>(MAX_CACHED_TEMPLATE,
+            new ParseCache.Parser<TemplateRoot>() {
+                @Override
+                public TemplateRoot parse(String content) {
+                    return new TemplateRoot(content);
+                }
+            });
+
     public RobotContentLinearLayout(Context context) {
         this(context, null);
     }
@@ -88,7 +102,10 @@ public class RobotContentLinearLayout extends LinearLayout {
             for (RobotBotContent bot : botContents) {
                 if (RobotResponseContent.RES_TYPE_BOT_COMP.equals(bot.getType())) {
                     // 复合
-                    convertTemplateToViews(new TemplateRoot(bot.getBotMsg()), robot);
+                    TemplateRoot template = templateCache.get(null, bot.getBotMsg());
+                    if (template != null) {
+                        convertTemplateToViews(template, robot);
+                    }
                 } else if (RobotResponseContent.RES_TYPE_BOT_TEXT.equals(bot.getType())
                         || RobotResponseContent.RES_TYPE_BOT_QUICK.equals(bot.getType())) {
                     // 文本
@@ -865,10 +865,28 @@ public class AdvancedTeamInfoActivity extends UI implements
      */
     private void transferTeam(final String account) {
         TeamMember member = TeamDataCache.getInstance().getTeamMember(teamId, account);
-        if (member == null) {
-            Toast.makeText(AdvancedTeamInfoActivity.this, "成员不存在", Toast.LENGTH_SHORT).show();
+        if (member != null) {
+            transferTeam(account, member);
             return;
         }
+
+        // 缓存未命中不代表不是群成员，查询后再判断
+        TeamDataCache.getInstance().fetchTeamMember(teamId, account, new SimpleCallback<TeamMember>() {
+            @Override
+            public void onResult(boolean success, TeamMember result) {
+                if (isDestroyedCompatible()) {
+                    return;
+                }
+                if (success && result != null && result.isInTeam()) {
+                    transferTeam(account, result);
+                } else {
+                    Toast.makeText(AdvancedTeamInfoActivity.this, "成员不存在", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    private void transferTeam(final String account, TeamMember member) {
         if (member.isMute()) {
             Toast.makeText(AdvancedTeamInfoActivity.this, "该成员已被禁言，请先取消禁言", Toast.LENGTH_LONG).show();
             return;
@@ -107,7 +107,19 @@ public class AdvancedTeamMemberActivity extends UI implements TAdapterDelegate,
         Team team = TeamDataCache.getInstance().getTeamById(teamId);
         if (team != null) {
             creator = team.getCreator();
+            return;
         }
+
+        // 缓存未命中，查询后刷新群主标识
+        TeamDataCache.getInstance().fetchTeamById(teamId, new SimpleCallback<Team>() {
+            @Override
+            public void onResult(boolean success, Team result) {
+                if (success && result != null && !isDestroyedCompatible()) {
+                    creator = result.getCreator();
+                    updateTeamMemberDataSource();
+                }
+            }
+        });
     }
 
     private void findViews() {
@@ -238,7 +250,7 @@ public class AdvancedTeamMemberActivity extends UI implements TAdapterDelegate,
      */
     private String initMemberIdentity(String account) {
         String identity;
-        if (creator.equals(account)) {
+        if (account.equals(creator)) {
             identity = TeamMemberHolder.OWNER;
         } else if (managerList.contains(account)) {
             identity = TeamMemberHolder.ADMIN;
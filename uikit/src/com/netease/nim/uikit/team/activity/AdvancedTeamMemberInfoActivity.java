@@ -142,17 +142,34 @@ public class AdvancedTeamMemberInfoActivity extends UI implements View.OnClickLi
 
     private void updateToggleView() {
         if (getMyPermission()) {
-            boolean isMute = TeamDataCache.getInstance().getTeamMember(teamId, account).isMute();
-            if (muteSwitch == null) {
-                addToggleBtn(isMute);
-            } else {
-                setToggleBtn(muteSwitch, isMute);
+            TeamMember member = TeamDataCache.getInstance().getTeamMember(teamId, account);
+            if (member != null) {
+                updateToggleView(member.isMute());
+                return;
             }
-            Log.i(TAG, "mute=" + isMute);
+
+            // 缓存未命中不代表未禁言，查询到成员资料后再显示开关
+            TeamDataCache.getInstance().fetchTeamMember(teamId, account, new SimpleCallback<TeamMember>() {
+                @Override
+                public void onResult(boolean success, TeamMember result) {
+                    if (success && result != null && !isDestroyedCompatible() && getMyPermission()) {
+                        updateToggleView(result.isMute());
+                    }
+                }
+            });
         }
 
     }
 
+    private void updateToggleView(boolean isMute) {
+        if (muteSwitch == null) {
+            addToggleBtn(isMute);
+        } else {
+            setToggleBtn(muteSwitch, isMute);
+        }
+        Log.i(TAG, "mute=" + isMute);
+    }
+
     // 判断是否有权限
     private boolean getMyPermission() {
         if (isSelfCreator && !isSelf(account)) {
@@ -323,8 +340,26 @@ public class AdvancedTeamMemberInfoActivity extends UI implements View.OnClickLi
     private void updateSelfIndentity() {
         TeamMember selfTeamMember = TeamDataCache.getInstance().getTeamMember(teamId, NimUIKit.getAccount());
         if (selfTeamMember == null) {
+            // 缓存未命中不代表没有权限，查询后再更新
+            TeamDataCache.getInstance().fetchTeamMember(teamId, NimUIKit.getAccount(), new SimpleCallback<TeamMember>() {
+                @Override
+                public void onResult(boolean success, TeamMember result) {
+                    if (success && result != null && !isDestroyedCompatible()) {
+                        updateSelfIdentity(result);
+                        if (viewMember != null) {
+                            updateRemoveBtn();
+                        }
+                        updateToggleView();
+                    }
+                }
+            });
             return;
         }
+
+        updateSelfIdentity(selfTeamMember);
+    }
+
+    private void updateSelfIdentity(TeamMember selfTeamMember) {
         if (selfTeamMember.getType() == TeamMemberType.Manager) {
             isSelfManager = true;
         } else if (selfTeamMember.getType() == TeamMemberType.Owner) {
@@ -3,42 +3,46 @@ package com.netease.nim.uikit.uinfo;
 import android.content.Context;
 import android.os.Handler;
 
-import java.util.ArrayList;
+import com.netease.nim.uikit.common.framework.ChangeSetCoalescer;
+import com.netease.nim.uikit.common.framework.ObserverList;
+
 import java.util.List;
 
 /**
  * 用户资料变动观察者。
+ * 一帧内的多次变动合并为一次通知，观察者收到去重后的帐号列表。
  */
 public class UserInfoObservable {
 
-    private List<UserInfoObserver> observers = new ArrayList<>();
-    private Handler uiHandler;
+    private final ObserverList<UserInfoObserver> observers = new ObserverList<>();
+
+    private final ChangeSetCoalescer<String> coalescer;
 
     public UserInfoObservable(Context context) {
-        uiHandler = new Handler(context.getMainLooper());
+        Handler uiHandler = new Handler(context.getMainLooper());
+        coalescer = new ChangeSetCoalescer<>(uiHandler, new ChangeSetCoalescer.Callback<String>() {
+            @Override
+            public void onChanged(final List<String> accounts) {
+                observers.dispatch(new ObserverList.Action<UserInfoObserver>() {
+                    @Override
+                    public void run(UserInfoObserver observer) {
+                        observer.onUserInfoChanged(accounts);
+                    }
+                });
+            }
+        });
     }
 
-    synchronized public void registerObserver(UserInfoObserver observer) {
-        if (observer != null) {
-            observers.add(observer);
-        }
+    public void registerObserver(UserInfoObserver observer) {
+        observers.register(observer);
     }
 
-    synchronized public void unregisterObserver(UserInfoObserver observer) {
-        if (observer != null) {
-            observers.remove(observer);
-        }
+    public void unregisterObserver(UserInfoObserver observer) {
+        observers.unregister(observer);
     }
 
-    synchronized public void notifyObservers(final List<String> accounts) {
-        uiHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                for (UserInfoObserver observer : observers) {
-                    observer.onUserInfoChanged(accounts);
-                }
-            }
-        });
+    public void notifyObservers(List<String> accounts) {
+        coalescer.submit(accounts);
     }
 
     public interface UserInfoObserver {